@@ -1,16 +1,23 @@
 package com.ppolivka.gitlabprojects.api;
 
+import com.ppolivka.gitlabprojects.api.dto.MergeRequestChangesDto;
 import com.ppolivka.gitlabprojects.api.dto.NamespaceDto;
+import com.ppolivka.gitlabprojects.api.dto.SimpleProjectDto;
 import org.gitlab.api.AuthMethod;
 import org.gitlab.api.GitlabAPI;
+import org.gitlab.api.GitlabAPIException;
 import org.gitlab.api.TokenType;
 import org.gitlab.api.http.GitlabHTTPRequestor;
 import org.gitlab.api.models.*;
 
 import java.io.IOException;
+import java.net.HttpURLConnection;
 import java.net.URLEncoder;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Facade aroud GitLab REST API
@@ -20,7 +27,22 @@ import java.util.stream.Collectors;
  */
 public class ApiFacade {
 
-    GitlabAPI api;
+    public static final int USER_SEARCH_LIMIT = PageFetcher.PER_PAGE;
+
+    public static final int MERGE_REQUEST_PAGE_SIZE = 20;
+
+    public static final int NOTE_PAGE_SIZE = 20;
+
+    public static final String SCOPE_ASSIGNED_TO_ME = "assigned_to_me";
+    public static final String SCOPE_CREATED_BY_ME = "created_by_me";
+
+    volatile GitlabAPI api;
+    private volatile ApiRequestor requestor;
+    private volatile PageFetcher pageFetcher;
+    private volatile int pageFetchParallelism = PageFetcher.DEFAULT_PARALLELISM;
+    private volatile long validatedAt;
+    private String host;
+    private String key;
 
     public ApiFacade() {
     }
@@ -31,15 +53,46 @@ public class ApiFacade {
 
     public boolean reload(String host, String key) {
         if (host != null && key != null && !host.isEmpty() && !key.isEmpty()) {
-            api = GitlabAPI.connect(host, key, TokenType.PRIVATE_TOKEN, AuthMethod.URL_PARAMETER);
-            api.ignoreCertificateErrors(true);
+            GitlabAPI connected = GitlabAPI.connect(host, key, TokenType.PRIVATE_TOKEN, AuthMethod.URL_PARAMETER);
+            connected.ignoreCertificateErrors(true);
+            this.host = host;
+            this.key = key;
+            validatedAt = 0;
+            requestor = new ApiRequestor(connected, key, () -> validatedAt = 0);
+            pageFetcher = new PageFetcher(requestor);
+            pageFetcher.setParallelism(pageFetchParallelism);
+            api = connected;
             return true;
         }
         return false;
     }
 
+    public boolean isConnectedTo(String host, String key) {
+        return api != null && Objects.equals(this.host, host) && Objects.equals(this.key, key);
+    }
+
+    /**
+     * Maximal number of pages of one collection that are fetched at the same time
+     */
+    public void setPageFetchParallelism(int pageFetchParallelism) {
+        this.pageFetchParallelism = pageFetchParallelism;
+        if (pageFetcher != null) {
+            pageFetcher.setParallelism(pageFetchParallelism);
+        }
+    }
+
     public GitlabSession getSession() throws IOException {
-        return api.getCurrentSession();
+        checkApi();
+        GitlabSession session = requestor.get("/user", GitlabSession.class);
+        validatedAt = System.currentTimeMillis();
+        return session;
+    }
+
+    /**
+     * Time of last successful session check, 0 when never checked or when server rejected the token since then
+     */
+    public long getValidatedAt() {
+        return validatedAt;
     }
 
     private void checkApi() throws IOException {
@@ -48,23 +101,141 @@ public class ApiFacade {
         }
     }
 
+    /**
+     * Calls {@link GitlabAPI} directly, token rejected by server resets session check the same way as for {@link ApiRequestor}
+     */
+    private <T> T callApi(ApiCall<T> call) throws IOException {
+        checkApi();
+        try {
+            return call.call();
+        } catch (GitlabAPIException e) {
+            if (e.getResponseCode() == HttpURLConnection.HTTP_UNAUTHORIZED) {
+                validatedAt = 0;
+            }
+            throw e;
+        }
+    }
+
+    private interface ApiCall<T> {
+        T call() throws IOException;
+    }
+
     public List<NamespaceDto> getNamespaces() throws IOException {
-        return api.retrieve().getAll("/namespaces", NamespaceDto[].class);
+        checkApi();
+        return pageFetcher.getAll("/namespaces", NamespaceDto[].class);
     }
 
-    public List<GitlabMergeRequest> getMergeRequests(GitlabProject project) throws IOException {
-        return api.getOpenMergeRequests(project);
+    /**
+     * Streams open merge requests, newest first
+     * Pages of {@link #MERGE_REQUEST_PAGE_SIZE} merge requests are requested lazily while stream is consumed,
+     * failure of page fetch is thrown as {@link java.io.UncheckedIOException}.
+     */
+    public Stream<GitlabMergeRequest> streamMergeRequests(GitlabProject project) throws IOException {
+        checkApi();
+        String tailUrl = GitlabProject.URL + "/" + project.getId() + GitlabMergeRequest.URL + "?state=opened&per_page=" + MERGE_REQUEST_PAGE_SIZE;
+        return StreamSupport.stream(new PageCursor<>(requestor, tailUrl, GitlabMergeRequest[].class), false);
     }
 
-    public List<GitlabNote> getMergeRequestComments(GitlabMergeRequest mergeRequest) throws IOException {
-        return api.getNotes(mergeRequest);
+    /**
+     * Merge requests in any state updated after given time, so closed and merged ones are included
+     */
+    public List<GitlabMergeRequest> getMergeRequestsUpdatedAfter(GitlabProject project, Date updatedAfter) throws IOException {
+        checkApi();
+        String since = DateTimeFormatter.ISO_INSTANT.format(Instant.ofEpochMilli(updatedAfter.getTime()));
+        String tailUrl = GitlabProject.URL + "/" + project.getId() + GitlabMergeRequest.URL + "?state=all&order_by=updated_at"
+                + "&updated_after=" + URLEncoder.encode(since, "UTF-8");
+        return pageFetcher.getAll(tailUrl, GitlabMergeRequest[].class);
     }
 
-    public void addComment(GitlabMergeRequest mergeRequest, String body) throws IOException {
-        api.createNote(mergeRequest, body);
+    /**
+     * Open merge requests of current user across all projects of the server
+     *
+     * @param scope {@link #SCOPE_ASSIGNED_TO_ME} or {@link #SCOPE_CREATED_BY_ME}
+     */
+    public List<GitlabMergeRequest> getMyMergeRequests(String scope) throws IOException {
+        checkApi();
+        return pageFetcher.getAll(GitlabMergeRequest.URL + "?state=opened&scope=" + scope, GitlabMergeRequest[].class);
+    }
+
+    /**
+     * Open merge requests between given branches, at most one exists on GitLab
+     */
+    public List<GitlabMergeRequest> getMergeRequests(GitlabProject project, String sourceBranch, String targetBranch) throws IOException {
+        checkApi();
+        String tailUrl = GitlabProject.URL + "/" + project.getId() + GitlabMergeRequest.URL + "?state=opened"
+                + "&source_branch=" + URLEncoder.encode(sourceBranch, "UTF-8") + "&target_branch=" + URLEncoder.encode(targetBranch, "UTF-8");
+        return Arrays.asList(requestor.get(tailUrl, GitlabMergeRequest[].class));
+    }
+
+    /**
+     * Files changed by merge request, diff_refs are missing on old GitLab servers
+     */
+    public MergeRequestChangesDto getMergeRequestChanges(GitlabProject project, GitlabMergeRequest mergeRequest) throws IOException {
+        checkApi();
+        String tailUrl = GitlabProject.URL + "/" + project.getId() + GitlabMergeRequest.URL + "/" + mergeRequest.getIid() + "/changes";
+        return requestor.get(tailUrl, MergeRequestChangesDto.class);
+    }
+
+    /**
+     * Commits and files changed between two refs
+     *
+     * @param straight diffs are computed directly between given refs when true, from their merge base otherwise
+     */
+    public GitlabCommitComparison compare(GitlabProject project, String from, String to, boolean straight) throws IOException {
+        checkApi();
+        String tailUrl = GitlabProject.URL + "/" + project.getId() + "/repository/compare"
+                + "?from=" + URLEncoder.encode(from, "UTF-8") + "&to=" + URLEncoder.encode(to, "UTF-8") + "&straight=" + straight;
+        return requestor.get(tailUrl, GitlabCommitComparison.class);
+    }
+
+    /**
+     * @return sha of common ancestor of given refs, null when server does not support merge base endpoint or refs have none
+     */
+    public String getMergeBase(GitlabProject project, String first, String second) throws IOException {
+        checkApi();
+        String tailUrl = GitlabProject.URL + "/" + project.getId() + "/repository/merge_base"
+                + "?refs[]=" + URLEncoder.encode(first, "UTF-8") + "&refs[]=" + URLEncoder.encode(second, "UTF-8");
+        try {
+            return requestor.get(tailUrl, GitlabCommit.class).getId();
+        } catch (GitlabAPIException e) {
+            if (e.getResponseCode() == HttpURLConnection.HTTP_NOT_FOUND || e.getResponseCode() == HttpURLConnection.HTTP_BAD_REQUEST) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    public byte[] getRawFileContent(GitlabProject project, String ref, String path) throws IOException {
+        checkApi();
+        String tailUrl = GitlabProject.URL + "/" + project.getId() + "/repository/files/" + encodePathSegment(path)
+                + "/raw?ref=" + URLEncoder.encode(ref, "UTF-8");
+        return requestor.getBytes(tailUrl);
+    }
+
+    /**
+     * Encodes value as single URL path segment, unlike query encoding spaces become %20 and slashes %2F
+     */
+    static String encodePathSegment(String value) throws IOException {
+        return URLEncoder.encode(value, "UTF-8").replace("+", "%20");
+    }
+
+    /**
+     * Streams notes of merge request, newest first
+     * Pages are requested lazily while stream is consumed, failure of page fetch is thrown as {@link java.io.UncheckedIOException}.
+     */
+    public Stream<GitlabNote> streamMergeRequestNotes(GitlabMergeRequest mergeRequest) throws IOException {
+        checkApi();
+        String tailUrl = GitlabProject.URL + "/" + mergeRequest.getProjectId() + GitlabMergeRequest.URL + "/" + mergeRequest.getIid() + GitlabNote.URL
+                + "?sort=desc&order_by=created_at&per_page=" + NOTE_PAGE_SIZE;
+        return StreamSupport.stream(new PageCursor<>(requestor, tailUrl, GitlabNote[].class), false);
+    }
+
+    public GitlabNote addComment(GitlabMergeRequest mergeRequest, String body) throws IOException {
+        return callApi(() -> api.createNote(mergeRequest, body));
     }
 
     public GitlabMergeRequest createMergeRequest(GitlabProject project, GitlabUser assignee, String from, String to, String title, String description, boolean removeSourceBranch) throws IOException {
+        checkApi();
         String tailUrl = "/projects/" + project.getId() + "/merge_requests";
         GitlabHTTPRequestor requestor = api.dispatch()
                 .with("source_branch", from)
@@ -78,19 +249,19 @@ public class ApiFacade {
             requestor.with("assignee_id", assignee.getId());
         }
 
-        return requestor.to(tailUrl, GitlabMergeRequest.class);
+        return callApi(() -> requestor.to(tailUrl, GitlabMergeRequest.class));
     }
 
     public void acceptMergeRequest(GitlabProject project, GitlabMergeRequest mergeRequest) throws IOException {
-        api.acceptMergeRequest(project, mergeRequest.getIid(), null);
+        callApi(() -> api.acceptMergeRequest(project, mergeRequest.getIid(), null));
     }
 
     public void changeAssignee(GitlabProject project, GitlabMergeRequest mergeRequest, GitlabUser user) throws IOException {
-        api.updateMergeRequest(project.getId(), mergeRequest.getIid(), null, user.getId(), null, null, null, null);
+        callApi(() -> api.updateMergeRequest(project.getId(), mergeRequest.getIid(), null, user.getId(), null, null, null, null));
     }
 
     public GitlabProject createProject(String name, String visibilityLevel, boolean isPublic, NamespaceDto namespace, String description) throws IOException {
-        return api.createProject(
+        return callApi(() -> api.createProject(
                 name,
                 namespace != null && namespace.getId() != 0 ? namespace.getId() : null,
                 description,
@@ -102,58 +273,97 @@ public class ApiFacade {
                 isPublic,
                 visibilityLevel,
                 null
-        );
+        ));
     }
 
     public GitlabProject getProject(Integer id) throws IOException {
-        return api.getProject(id);
+        checkApi();
+        return requestor.get(GitlabProject.URL + "/" + id, GitlabProject.class);
     }
 
-    public List<GitlabBranch> loadProjectBranches(GitlabProject gitlabProject) throws IOException {
-        return api.getBranches(gitlabProject);
+    /**
+     * @param pathWithNamespace full path of the project, like group/subgroup/project
+     */
+    public GitlabProject getProject(String pathWithNamespace) throws IOException {
+        checkApi();
+        return requestor.get(GitlabProject.URL + "/" + URLEncoder.encode(pathWithNamespace, "UTF-8"), GitlabProject.class);
     }
 
-    public Collection<GitlabProject> getProjects() throws Throwable {
+    public List<GitlabBranch> loadProjectBranches(GitlabProject gitlabProject) throws IOException {
         checkApi();
+        return pageFetcher.getAll(GitlabProject.URL + "/" + gitlabProject.getId() + GitlabBranch.URL, GitlabBranch[].class);
+    }
 
-        SortedSet<GitlabProject> result = new TreeSet<>(new Comparator<GitlabProject>() {
-            @Override
-            public int compare(GitlabProject o1, GitlabProject o2) {
-                GitlabNamespace namespace1 = o1.getNamespace();
-                String n1 = namespace1 != null ? namespace1.getName().toLowerCase() : "Default";
-                GitlabNamespace namespace2 = o2.getNamespace();
-                String n2 = namespace2 != null ? namespace2.getName().toLowerCase() : "Default";
-
-                int compareNamespace = n1.compareTo(n2);
-                return compareNamespace != 0 ? compareNamespace : o1.getName().toLowerCase().compareTo(o2.getName().toLowerCase());
+    /**
+     * @return branch of the project or null when it does not exist on server
+     */
+    public GitlabBranch getBranch(GitlabProject gitlabProject, String name) throws IOException {
+        checkApi();
+        try {
+            return requestor.get(GitlabProject.URL + "/" + gitlabProject.getId() + GitlabBranch.URL + "/" + URLEncoder.encode(name, "UTF-8"), GitlabBranch.class);
+        } catch (GitlabAPIException e) {
+            if (e.getResponseCode() == HttpURLConnection.HTTP_NOT_FOUND) {
+                return null;
             }
-        });
+            throw e;
+        }
+    }
 
-        List<GitlabProject> projects;
-        try {
-            projects = api.getMembershipProjects();
-        } catch (Throwable e) {
-            projects = Collections.emptyList();
+    /**
+     * Lists membership projects
+     * Full listing leaves archived projects out and uses slim projection. Listing of projects with recent activity
+     * includes archived ones with full projection, so catalog can drop projects archived since last sync.
+     *
+     * @param lastActivityAfter only projects with activity after this date are returned, all projects when null
+     */
+    public List<SimpleProjectDto> getMembershipProjects(Date lastActivityAfter) throws IOException {
+        checkApi();
+        String tailUrl;
+        if (lastActivityAfter == null) {
+            tailUrl = GitlabProject.URL + "?membership=true&archived=false&simple=true";
+        } else {
+            String since = DateTimeFormatter.ISO_INSTANT.format(Instant.ofEpochMilli(lastActivityAfter.getTime()));
+            tailUrl = GitlabProject.URL + "?membership=true&last_activity_after=" + URLEncoder.encode(since, "UTF-8");
         }
-        projects = projects.stream().filter(project -> !Boolean.TRUE.equals(project.isArchived())).collect(Collectors.toList());
-        result.addAll(projects);
+        return pageFetcher.getAll(tailUrl, SimpleProjectDto[].class);
+    }
 
-        return result;
+    /**
+     * Streams non archived membership projects ordered by id, using keyset pagination
+     * Pages are requested lazily, so short-circuiting operations stop fetching at first hit.
+     * Failure of page fetch is thrown as {@link java.io.UncheckedIOException} from terminal operation.
+     */
+    public Stream<GitlabProject> streamProjects() throws IOException {
+        checkApi();
+        String tailUrl = GitlabProject.URL + "?membership=true&archived=false&pagination=keyset&order_by=id&sort=asc&per_page=" + PageFetcher.PER_PAGE;
+        return StreamSupport.stream(new PageCursor<>(requestor, tailUrl, GitlabProject[].class), false);
     }
 
+    /**
+     * Searches project members, at most {@link #USER_SEARCH_LIMIT} users are returned,
+     * so smaller result contains all matching users
+     */
     public Collection<GitlabUser> searchUsers(GitlabProject project, String text) throws IOException {
         checkApi();
         List<GitlabUser> users = new ArrayList<>();
         if (text != null) {
-            String tailUrl = GitlabProject.URL + "/" + project.getId() + "/users" + "?search=" + URLEncoder.encode(text, "UTF-8");
-            GitlabUser[] response = api.retrieve().to(tailUrl, GitlabUser[].class);
+            String tailUrl = GitlabProject.URL + "/" + project.getId() + "/users" + "?search=" + URLEncoder.encode(text, "UTF-8") + "&per_page=" + USER_SEARCH_LIMIT;
+            GitlabUser[] response = requestor.get(tailUrl, GitlabUser[].class);
             users = Arrays.asList(response);
         }
         return users;
     }
 
+    /**
+     * All users with access to the project, every page
+     */
+    public List<GitlabUser> getProjectUsers(GitlabProject project) throws IOException {
+        checkApi();
+        return pageFetcher.getAll(GitlabProject.URL + "/" + project.getId() + "/users", GitlabUser[].class);
+    }
+
     public GitlabUser getCurrentUser() throws IOException {
         checkApi();
-        return api.getUser();
+        return requestor.get(GitlabUser.USER_URL, GitlabUser.class);
     }
 }
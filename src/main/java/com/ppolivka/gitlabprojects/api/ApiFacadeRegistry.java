@@ -0,0 +1,44 @@
+package com.ppolivka.gitlabprojects.api;
+
+import com.ppolivka.gitlabprojects.dto.GitlabServer;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * Registry of long-lived API facades, one per configured GitLab server
+ */
+public class ApiFacadeRegistry {
+
+    private final ConcurrentMap<String, ApiFacade> facades = new ConcurrentHashMap<>();
+
+    /**
+     * Returns cached facade for server, new one is connected only when there is none
+     * or when token of the server changed
+     */
+    public ApiFacade get(GitlabServer server) {
+        String apiUrl = server.getApiUrl();
+        String apiToken = server.getApiToken();
+        return facades.compute(apiUrl, (url, facade) ->
+                facade != null && facade.isConnectedTo(apiUrl, apiToken) ? facade : new ApiFacade(apiUrl, apiToken));
+    }
+
+    public void evict(GitlabServer server) {
+        facades.remove(server.getApiUrl());
+    }
+
+    /**
+     * Drops facades of servers that are not configured anymore
+     */
+    public void retain(Collection<GitlabServer> servers) {
+        Set<String> apiUrls = servers.stream().map(GitlabServer::getApiUrl).collect(Collectors.toSet());
+        facades.keySet().retainAll(apiUrls);
+    }
+
+    public int size() {
+        return facades.size();
+    }
+}
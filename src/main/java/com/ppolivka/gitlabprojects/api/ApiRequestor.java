@@ -0,0 +1,166 @@
+package com.ppolivka.gitlabprojects.api;
+
+import org.apache.commons.io.IOUtils;
+import org.gitlab.api.GitlabAPI;
+import org.gitlab.api.GitlabAPIException;
+
+import javax.net.ssl.*;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Read only HTTP requestor that keeps connections to GitLab server alive
+ * java-gitlab-api disconnects every connection after use and installs new default SSL context for every request,
+ * so neither TCP connection nor TLS session can be reused between calls
+ */
+class ApiRequestor {
+
+    private static final String TOKEN_HEADER = "PRIVATE-TOKEN";
+
+    private final GitlabAPI api;
+    private final String token;
+    private final SSLSocketFactory socketFactory;
+    private final Runnable unauthorizedListener;
+
+    ApiRequestor(GitlabAPI api, String token) {
+        this(api, token, () -> {});
+    }
+
+    /**
+     * @param unauthorizedListener called when server rejects the token with HTTP 401
+     */
+    ApiRequestor(GitlabAPI api, String token, Runnable unauthorizedListener) {
+        this.api = api;
+        this.token = token;
+        this.socketFactory = trustAllSocketFactory();
+        this.unauthorizedListener = unauthorizedListener;
+    }
+
+    <T> T get(String tailUrl, Class<T> type) throws IOException {
+        return fetch(tailUrl, type).getBody();
+    }
+
+    /**
+     * Same as {@link #get(String, Class)} but response headers are kept, pagination info is sent in headers
+     */
+    <T> Response<T> fetch(String tailUrl, Class<T> type) throws IOException {
+        HttpURLConnection connection = connect(tailUrl);
+        String json = readBody(connection, connection.getInputStream());
+        return new Response<>(GitlabAPI.MAPPER.readValue(json, type), connection.getHeaderFields());
+    }
+
+    /**
+     * Response body as is, for raw repository files
+     */
+    byte[] getBytes(String tailUrl) throws IOException {
+        HttpURLConnection connection = connect(tailUrl);
+        try (InputStream input = unwrap(connection, connection.getInputStream())) {
+            return IOUtils.toByteArray(input);
+        }
+    }
+
+    private HttpURLConnection connect(String tailUrl) throws IOException {
+        HttpURLConnection connection = open(api.getAPIUrl(tailUrl));
+        int responseCode = connection.getResponseCode();
+        if (responseCode >= HttpURLConnection.HTTP_BAD_REQUEST) {
+            if (responseCode == HttpURLConnection.HTTP_UNAUTHORIZED) {
+                unauthorizedListener.run();
+            }
+            String error = readBody(connection, connection.getErrorStream());
+            throw new GitlabAPIException(error, responseCode, new IOException("GET " + tailUrl + " failed with HTTP " + responseCode));
+        }
+        return connection;
+    }
+
+    private HttpURLConnection open(URL url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) (api.getProxy() != null ? url.openConnection(api.getProxy()) : url.openConnection());
+        if (connection instanceof HttpsURLConnection && socketFactory != null) {
+            // per connection factory, one instance per server, so pooled connections and TLS sessions match on next call
+            ((HttpsURLConnection) connection).setSSLSocketFactory(socketFactory);
+            ((HttpsURLConnection) connection).setHostnameVerifier((hostname, session) -> true);
+        }
+        if (api.getRequestTimeout() > 0) {
+            connection.setReadTimeout(api.getRequestTimeout());
+        }
+        connection.setRequestMethod("GET");
+        connection.setRequestProperty(TOKEN_HEADER, token);
+        connection.setRequestProperty("User-Agent", api.getUserAgent());
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        return connection;
+    }
+
+    /**
+     * Reads whole body and closes the stream without disconnecting,
+     * fully consumed stream is returned to JVM keep-alive cache
+     */
+    private static String readBody(HttpURLConnection connection, InputStream stream) throws IOException {
+        if (stream == null) {
+            return null;
+        }
+        try (InputStream input = unwrap(connection, stream)) {
+            return IOUtils.toString(input, StandardCharsets.UTF_8.name());
+        }
+    }
+
+    private static InputStream unwrap(HttpURLConnection connection, InputStream stream) throws IOException {
+        return "gzip".equals(connection.getContentEncoding()) ? new GZIPInputStream(stream) : stream;
+    }
+
+    private static SSLSocketFactory trustAllSocketFactory() {
+        TrustManager[] trustAllCerts = new TrustManager[]{new X509TrustManager() {
+            @Override
+            public X509Certificate[] getAcceptedIssuers() {
+                return new X509Certificate[0];
+            }
+
+            @Override
+            public void checkClientTrusted(X509Certificate[] certs, String authType) {
+            }
+
+            @Override
+            public void checkServerTrusted(X509Certificate[] certs, String authType) {
+            }
+        }};
+        try {
+            SSLContext context = SSLContext.getInstance("TLS");
+            context.init(null, trustAllCerts, new SecureRandom());
+            return context.getSocketFactory();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    static class Response<T> {
+        private final T body;
+        private final Map<String, List<String>> headers;
+
+        Response(T body, Map<String, List<String>> headers) {
+            this.body = body;
+            this.headers = headers;
+        }
+
+        T getBody() {
+            return body;
+        }
+
+        /**
+         * Header value, header names are matched case insensitive
+         */
+        String getHeader(String name) {
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                if (name.equalsIgnoreCase(header.getKey()) && !header.getValue().isEmpty()) {
+                    return header.getValue().get(0);
+                }
+            }
+            return null;
+        }
+    }
+}
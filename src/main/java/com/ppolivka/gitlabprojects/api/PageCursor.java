@@ -0,0 +1,104 @@
+package com.ppolivka.gitlabprojects.api;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Lazy cursor over paginated GitLab collection
+ * Next page is requested only after current one was consumed, consumed page is released right away.
+ * Pages are followed by Link rel="next" header, which GitLab sends both for keyset and offset pagination,
+ * X-Next-Page header is used when Link is missing.
+ */
+class PageCursor<T> implements Spliterator<T> {
+
+    private static final String API_NAMESPACE = "/api/v4";
+    private static final String LINK_HEADER = "Link";
+    private static final String NEXT_PAGE_HEADER = "X-Next-Page";
+    private static final Pattern NEXT_LINK = Pattern.compile("<([^>]+)>\\s*;\\s*rel=\"next\"");
+
+    private final ApiRequestor requestor;
+    private final String tailUrl;
+    private final Class<T[]> type;
+
+    private String nextUrl;
+    private T[] page;
+    private int index;
+
+    PageCursor(ApiRequestor requestor, String tailUrl, Class<T[]> type) {
+        this.requestor = requestor;
+        this.tailUrl = tailUrl;
+        this.type = type;
+        this.nextUrl = tailUrl;
+    }
+
+    /**
+     * @throws UncheckedIOException when page can not be fetched
+     */
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        while (page == null || index >= page.length) {
+            if (nextUrl == null) {
+                page = null;
+                return false;
+            }
+            loadNextPage();
+        }
+        action.accept(page[index++]);
+        return true;
+    }
+
+    private void loadNextPage() {
+        page = null;
+        index = 0;
+        try {
+            ApiRequestor.Response<T[]> response = requestor.fetch(nextUrl, type);
+            page = response.getBody();
+            nextUrl = nextUrl(response);
+        } catch (IOException e) {
+            nextUrl = null;
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String nextUrl(ApiRequestor.Response<T[]> response) {
+        String link = response.getHeader(LINK_HEADER);
+        if (link != null) {
+            Matcher matcher = NEXT_LINK.matcher(link);
+            if (matcher.find()) {
+                return toTailUrl(matcher.group(1));
+            }
+        }
+        String nextPage = response.getHeader(NEXT_PAGE_HEADER);
+        if (nextPage != null && !nextPage.trim().isEmpty()) {
+            return tailUrl + (tailUrl.contains("?") ? "&" : "?") + "page=" + nextPage.trim();
+        }
+        return null;
+    }
+
+    /**
+     * Link header holds absolute URL, requestor works with URL relative to API root
+     */
+    static String toTailUrl(String link) {
+        int namespace = link.indexOf(API_NAMESPACE + "/");
+        return namespace < 0 ? link : link.substring(namespace + API_NAMESPACE.length());
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+}
@@ -0,0 +1,120 @@
+package com.ppolivka.gitlabprojects.api;
+
+import org.jetbrains.ide.PooledThreadExecutor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fetches all pages of paginated GitLab collection
+ * First page tells total number of pages in X-Total-Pages header, remaining pages are then fetched concurrently on pooled threads
+ * and merged in page order. When server does not send the total (large collections), pages are followed one by one.
+ */
+class PageFetcher {
+
+    static final int PER_PAGE = 100;
+    static final int DEFAULT_PARALLELISM = 4;
+
+    private static final String TOTAL_PAGES_HEADER = "X-Total-Pages";
+    private static final String NEXT_PAGE_HEADER = "X-Next-Page";
+
+    private final ApiRequestor requestor;
+    private final Executor executor;
+    private volatile int parallelism = DEFAULT_PARALLELISM;
+
+    PageFetcher(ApiRequestor requestor) {
+        this(requestor, PooledThreadExecutor.INSTANCE);
+    }
+
+    /**
+     * @param executor runs page workers, never more than parallelism of them for one collection
+     */
+    PageFetcher(ApiRequestor requestor, Executor executor) {
+        this.requestor = requestor;
+        this.executor = executor;
+    }
+
+    void setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    <T> List<T> getAll(String tailUrl, Class<T[]> type) throws IOException {
+        ApiRequestor.Response<T[]> firstPage = requestor.fetch(pageUrl(tailUrl, 1), type);
+        List<T> results = new ArrayList<>(Arrays.asList(firstPage.getBody()));
+
+        Integer totalPages = parseInt(firstPage.getHeader(TOTAL_PAGES_HEADER));
+        if (totalPages == null) {
+            followNextPages(tailUrl, type, firstPage, results);
+        } else if (totalPages > 1) {
+            AtomicReferenceArray<T[]> pages = fetchPages(tailUrl, type, totalPages);
+            for (int i = 0; i < pages.length(); i++) {
+                results.addAll(Arrays.asList(pages.get(i)));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Fetches pages 2..totalPages, at most {@link #parallelism} requests run at the same time
+     */
+    private <T> AtomicReferenceArray<T[]> fetchPages(String tailUrl, Class<T[]> type, int totalPages) throws IOException {
+        AtomicReferenceArray<T[]> pages = new AtomicReferenceArray<>(totalPages - 1);
+        AtomicInteger nextPage = new AtomicInteger(2);
+        int workerCount = Math.min(parallelism, totalPages - 1);
+        CompletableFuture<?>[] workers = new CompletableFuture<?>[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = CompletableFuture.runAsync(() -> {
+                int page;
+                while ((page = nextPage.getAndIncrement()) <= totalPages) {
+                    try {
+                        pages.set(page - 2, requestor.get(pageUrl(tailUrl, page), type));
+                    } catch (IOException e) {
+                        // stop other workers, whole collection fails anyway
+                        nextPage.set(totalPages + 1);
+                        throw new CompletionException(e);
+                    }
+                }
+            }, executor);
+        }
+        try {
+            CompletableFuture.allOf(workers).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
+        }
+        return pages;
+    }
+
+    private <T> void followNextPages(String tailUrl, Class<T[]> type, ApiRequestor.Response<T[]> response, List<T> results) throws IOException {
+        Integer nextPage = parseInt(response.getHeader(NEXT_PAGE_HEADER));
+        while (nextPage != null) {
+            response = requestor.fetch(pageUrl(tailUrl, nextPage), type);
+            results.addAll(Arrays.asList(response.getBody()));
+            nextPage = parseInt(response.getHeader(NEXT_PAGE_HEADER));
+        }
+    }
+
+    static String pageUrl(String tailUrl, int page) {
+        return tailUrl + (tailUrl.contains("?") ? "&" : "?") + "page=" + page + "&per_page=" + PER_PAGE;
+    }
+
+    private static Integer parseInt(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
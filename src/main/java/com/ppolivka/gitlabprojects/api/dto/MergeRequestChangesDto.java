@@ -0,0 +1,59 @@
+package com.ppolivka.gitlabprojects.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.gitlab.api.models.GitlabCommitDiff;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Changed files of merge request together with commits the diff was computed between
+ */
+public class MergeRequestChangesDto {
+
+    @JsonProperty("diff_refs")
+    private DiffRefs diffRefs;
+
+    private List<GitlabCommitDiff> changes = new ArrayList<>();
+
+    public DiffRefs getDiffRefs() {
+        return diffRefs;
+    }
+
+    public void setDiffRefs(DiffRefs diffRefs) {
+        this.diffRefs = diffRefs;
+    }
+
+    public List<GitlabCommitDiff> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(List<GitlabCommitDiff> changes) {
+        this.changes = changes;
+    }
+
+    public static class DiffRefs {
+
+        @JsonProperty("base_sha")
+        private String baseSha;
+
+        @JsonProperty("head_sha")
+        private String headSha;
+
+        public String getBaseSha() {
+            return baseSha;
+        }
+
+        public void setBaseSha(String baseSha) {
+            this.baseSha = baseSha;
+        }
+
+        public String getHeadSha() {
+            return headSha;
+        }
+
+        public void setHeadSha(String headSha) {
+            this.headSha = headSha;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.ppolivka.gitlabprojects.api.dto;
+
+import java.io.Serializable;
+
+/**
+ * DTO Class representing one merge request of the dashboard, flattened so it can be cached in settings
+ */
+public class MergeRequestDto implements Serializable {
+    private String serverUrl;
+    private Integer id;
+    private Integer iid;
+    private Integer projectId;
+    private String project;
+    private String title;
+    private String author;
+    private String sourceBranch;
+    private String targetBranch;
+    private String webUrl;
+    private long updatedAt;
+    private boolean assignedToMe;
+    private boolean createdByMe;
+
+    public String getServerUrl() {
+        return serverUrl;
+    }
+
+    public void setServerUrl(String serverUrl) {
+        this.serverUrl = serverUrl;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public Integer getIid() {
+        return iid;
+    }
+
+    public void setIid(Integer iid) {
+        this.iid = iid;
+    }
+
+    public Integer getProjectId() {
+        return projectId;
+    }
+
+    public void setProjectId(Integer projectId) {
+        this.projectId = projectId;
+    }
+
+    public String getProject() {
+        return project;
+    }
+
+    public void setProject(String project) {
+        this.project = project;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(String author) {
+        this.author = author;
+    }
+
+    public String getSourceBranch() {
+        return sourceBranch;
+    }
+
+    public void setSourceBranch(String sourceBranch) {
+        this.sourceBranch = sourceBranch;
+    }
+
+    public String getTargetBranch() {
+        return targetBranch;
+    }
+
+    public void setTargetBranch(String targetBranch) {
+        this.targetBranch = targetBranch;
+    }
+
+    public String getWebUrl() {
+        return webUrl;
+    }
+
+    public void setWebUrl(String webUrl) {
+        this.webUrl = webUrl;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public boolean isAssignedToMe() {
+        return assignedToMe;
+    }
+
+    public void setAssignedToMe(boolean assignedToMe) {
+        this.assignedToMe = assignedToMe;
+    }
+
+    public boolean isCreatedByMe() {
+        return createdByMe;
+    }
+
+    public void setCreatedByMe(boolean createdByMe) {
+        this.createdByMe = createdByMe;
+    }
+}
@@ -9,6 +9,7 @@ package com.ppolivka.gitlabprojects.api.dto;
 public class NamespaceDto {
 
     private int id;
+    private String name;
     private String path;
     private String kind;
 
@@ -23,6 +24,14 @@ public class NamespaceDto {
         this.id = id;
     }
 
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
     public String getPath() {
         return path;
     }
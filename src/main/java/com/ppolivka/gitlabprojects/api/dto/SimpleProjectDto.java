@@ -0,0 +1,81 @@
+package com.ppolivka.gitlabprojects.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Slim projection of GitLab project, as returned by project listing with simple=true
+ * Archived flag is sent only in full projection, it is false for projects listed with simple=true.
+ */
+public class SimpleProjectDto {
+
+    private Integer id;
+    private String name;
+    private NamespaceDto namespace;
+
+    @JsonProperty("path_with_namespace")
+    private String pathWithNamespace;
+
+    @JsonProperty("ssh_url_to_repo")
+    private String sshUrl;
+
+    @JsonProperty("http_url_to_repo")
+    private String httpUrl;
+
+    private boolean archived;
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public NamespaceDto getNamespace() {
+        return namespace;
+    }
+
+    public void setNamespace(NamespaceDto namespace) {
+        this.namespace = namespace;
+    }
+
+    public String getPathWithNamespace() {
+        return pathWithNamespace;
+    }
+
+    public void setPathWithNamespace(String pathWithNamespace) {
+        this.pathWithNamespace = pathWithNamespace;
+    }
+
+    public String getSshUrl() {
+        return sshUrl;
+    }
+
+    public void setSshUrl(String sshUrl) {
+        this.sshUrl = sshUrl;
+    }
+
+    public String getHttpUrl() {
+        return httpUrl;
+    }
+
+    public void setHttpUrl(String httpUrl) {
+        this.httpUrl = httpUrl;
+    }
+
+    public boolean isArchived() {
+        return archived;
+    }
+
+    public void setArchived(boolean archived) {
+        this.archived = archived;
+    }
+}
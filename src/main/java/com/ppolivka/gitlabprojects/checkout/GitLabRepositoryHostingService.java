@@ -2,6 +2,7 @@ package com.ppolivka.gitlabprojects.checkout;
 
 import com.intellij.dvcs.hosting.RepositoryListLoader;
 import com.intellij.dvcs.hosting.RepositoryListLoadingException;
+import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.project.Project;
 import com.ppolivka.gitlabprojects.api.dto.ProjectDto;
@@ -15,8 +16,12 @@ import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class GitLabRepositoryHostingService extends GitRepositoryHostingService {
+
+    private static final Logger LOG = Logger.getInstance(GitLabRepositoryHostingService.class);
+
     @NotNull
     @Override
     public String getServiceDisplayName() {
@@ -47,19 +52,37 @@ public class GitLabRepositoryHostingService extends GitRepositoryHostingService
             public List<String> getAvailableRepositories(@NotNull ProgressIndicator progressIndicator) throws RepositoryListLoadingException {
                 try {
                     List<String> repos = new ArrayList<>();
+                    Collection<GitlabServer> servers = settingsState.getGitlabServers();
+                    AtomicInteger finishedServers = new AtomicInteger();
+                    progressIndicator.setIndeterminate(false);
                     GitLabUtil.runInterruptable(progressIndicator, () -> {
                         try {
-                            return settingsState.loadMapOfServersAndProjects(settingsState.getGitlabServers());
-                        } catch (Throwable throwable) {
-                            throwable.printStackTrace();
-                        }
-                        return new HashMap<GitlabServer, Collection<ProjectDto>>();
-                    }).forEach((server, projects) -> {
-                        if(GitlabServer.CheckoutType.SSH.equals(server.getPreferredConnection())) {
-                            projects.forEach(project -> repos.add(project.getSshUrl()));
-                        } else {
-                            projects.forEach(project -> repos.add(project.getHttpUrl()));
+                            settingsState.loadProjects(servers, new SettingsState.ServerProjectsListener() {
+                                @Override
+                                public void projectsLoaded(GitlabServer server, Collection<ProjectDto> projects) {
+                                    if(GitlabServer.CheckoutType.SSH.equals(server.getPreferredConnection())) {
+                                        projects.forEach(project -> repos.add(project.getSshUrl()));
+                                    } else {
+                                        projects.forEach(project -> repos.add(project.getHttpUrl()));
+                                    }
+                                    serverFinished(server);
+                                }
+
+                                @Override
+                                public void loadingFailed(GitlabServer server, Throwable error) {
+                                    LOG.warn("Cannot load projects from " + server.getApiUrl(), error);
+                                    serverFinished(server);
+                                }
+
+                                private void serverFinished(GitlabServer server) {
+                                    progressIndicator.setText2(server.getApiUrl());
+                                    progressIndicator.setFraction((double) finishedServers.incrementAndGet() / servers.size());
+                                }
+                            });
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
                         }
+                        return null;
                     });
                     return repos;
                 } catch (IOException e) {
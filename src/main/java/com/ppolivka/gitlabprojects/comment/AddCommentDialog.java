@@ -10,6 +10,7 @@ import com.ppolivka.gitlabprojects.configuration.SettingsState;
 import com.ppolivka.gitlabprojects.util.GitLabUtil;
 import org.apache.commons.lang.StringUtils;
 import org.gitlab.api.models.GitlabMergeRequest;
+import org.gitlab.api.models.GitlabNote;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -34,11 +35,13 @@ public class AddCommentDialog extends DialogWrapper {
   private Project project;
   private VirtualFile file;
   private GitlabMergeRequest mergeRequest;
+  private GitlabNote createdNote;
 
   protected AddCommentDialog(@Nullable Project project, @NotNull GitlabMergeRequest mergeRequest, VirtualFile file) {
     super(project);
     this.project = project;
     this.mergeRequest = mergeRequest;
+    this.file = file;
     init();
   }
 
@@ -56,7 +59,7 @@ public class AddCommentDialog extends DialogWrapper {
       String comment = commentText.getText();
       if (StringUtils.isNotBlank(comment)) {
         try {
-          settingsState.api(project, file).addComment(mergeRequest, comment);
+          createdNote = settingsState.api(project, file).addComment(mergeRequest, comment);
         } catch (IOException e) {
           showErrorDialog(project, "Cannot add comment.", "Cannot Add Comment");
         }
@@ -65,6 +68,14 @@ public class AddCommentDialog extends DialogWrapper {
     });
   }
 
+  /**
+   * @return note created on server, null when dialog was cancelled or comment could not be added
+   */
+  @Nullable
+  public GitlabNote getCreatedNote() {
+    return createdNote;
+  }
+
   @Nullable
   @Override
   protected ValidationInfo doValidate() {
@@ -4,8 +4,11 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.DialogWrapper;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.ppolivka.gitlabprojects.common.ReadOnlyTableModel;
+import com.ppolivka.gitlabprojects.util.GitLabUtil;
 import git4idea.DialogManager;
+import org.gitlab.api.models.GitlabMergeRequest;
 import org.gitlab.api.models.GitlabNote;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
@@ -14,6 +17,9 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.ppolivka.gitlabprojects.util.MessageUtil.showErrorDialog;
 
 /**
  * Dialog for listing comments
@@ -26,26 +32,31 @@ public class CommentsDialog extends DialogWrapper {
   private JPanel panel;
   private JTable comments;
   private JButton addCommentButton;
+  private JButton refreshButton;
 
   private Project project;
   private VirtualFile file;
   private GitLabCommentsListWorker worker;
 
-  public CommentsDialog(@Nullable Project project, GitLabCommentsListWorker worker, VirtualFile file) {
+  public CommentsDialog(@NotNull Project project, @NotNull GitlabMergeRequest mergeRequest, VirtualFile file) {
     super(project);
     this.project = project;
-    this.worker = worker;
+    this.worker = GitLabCommentsListWorker.create(project, mergeRequest, file);
     this.file = file;
     init();
   }
 
+  /**
+   * Cached comments are shown right away, newer ones are added when loaded
+   * Refresh downloads all comments again, so edited and deleted ones are updated too.
+   */
   @Override
   protected void init() {
     super.init();
 
-    setTitle("Comments");
-
     reloadModel();
+    showComments(worker.loadComments(getDisposable(), project));
+    refreshButton.addActionListener(e -> showComments(worker.reloadComments(getDisposable(), project)));
 
     comments.addMouseListener(new MouseAdapter() {
       @Override
@@ -60,12 +71,37 @@ public class CommentsDialog extends DialogWrapper {
     });
 
     addCommentButton.addActionListener(e -> {
-      new AddCommentDialog(project, worker.getMergeRequest(), file).show();
-      this.worker = GitLabCommentsListWorker.create(project, worker.getMergeRequest(), file);
+      AddCommentDialog addCommentDialog = new AddCommentDialog(project, worker.getMergeRequest(), file);
+      addCommentDialog.show();
+      GitlabNote createdNote = addCommentDialog.getCreatedNote();
+      if (createdNote != null) {
+        worker.addComment(project, createdNote);
+        reloadModel();
+        comments.repaint();
+      }
+    });
+
+  }
+
+  private void showComments(CompletableFuture<List<GitlabNote>> loading) {
+    setTitle("Comments (loading...)");
+    addCommentButton.setEnabled(false);
+    refreshButton.setEnabled(false);
+
+    GitLabUtil.whenLoaded(getDisposable(), loading, notes -> {
+      worker.setComments(notes);
       reloadModel();
-      comments.repaint();
+      loadingFinished();
+    }, e -> {
+      showErrorDialog(project, "Cannot load comments from GitLab API", "Cannot Load Comments");
+      loadingFinished();
     });
+  }
 
+  private void loadingFinished() {
+    setTitle("Comments");
+    addCommentButton.setEnabled(true);
+    refreshButton.setEnabled(true);
   }
 
   private void reloadModel() {
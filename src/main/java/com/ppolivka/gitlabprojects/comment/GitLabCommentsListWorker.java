@@ -1,20 +1,20 @@
 package com.ppolivka.gitlabprojects.comment;
 
-import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.Disposable;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.util.containers.Convertor;
 import com.ppolivka.gitlabprojects.configuration.SettingsState;
 import com.ppolivka.gitlabprojects.util.GitLabUtil;
 import org.gitlab.api.models.GitlabMergeRequest;
 import org.gitlab.api.models.GitlabNote;
 import org.jetbrains.annotations.NotNull;
 
-import java.io.IOException;
-import java.util.Collections;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
 import java.util.List;
-
-import static com.ppolivka.gitlabprojects.util.MessageUtil.showErrorDialog;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * Worker for extracting comments on merge request
@@ -29,6 +29,7 @@ public class GitLabCommentsListWorker {
   GitlabMergeRequest mergeRequest;
   List<GitlabNote> comments;
   VirtualFile file;
+  String serverUrl;
 
   public GitlabMergeRequest getMergeRequest() {
     return mergeRequest;
@@ -46,19 +47,50 @@ public class GitLabCommentsListWorker {
     this.comments = comments;
   }
 
-  public static GitLabCommentsListWorker create(@NotNull final Project project, @NotNull final GitlabMergeRequest mergeRequest, final VirtualFile file) {
-    return GitLabUtil.computeValueInModal(project, "Loading comments...", (Convertor<ProgressIndicator, GitLabCommentsListWorker>) indicator -> {
-      GitLabCommentsListWorker commentsListWorker = new GitLabCommentsListWorker();
-      commentsListWorker.setMergeRequest(mergeRequest);
-      try {
-        commentsListWorker.setComments(settingsState.api(project, file).getMergeRequestComments(mergeRequest));
-      } catch (IOException e) {
-        commentsListWorker.setComments(Collections.<GitlabNote>emptyList());
-        showErrorDialog(project, "Cannot load comments from GitLab API", "Cannot Load Comments");
-      }
+  /**
+   * Adds comment created by current user to listed and cached comments
+   */
+  public void addComment(@NotNull Project project, @NotNull GitlabNote note) {
+    setComments(MergeRequestNoteCache.getInstance(project).add(serverUrl, mergeRequest, note));
+  }
+
+  /**
+   * Loads comments of merge request in background, only comments newer than the cached ones are downloaded
+   * Loading is cancelled when parent is disposed.
+   */
+  public CompletableFuture<List<GitlabNote>> loadComments(@NotNull Disposable parent, @NotNull Project project) {
+    MergeRequestNoteCache cache = MergeRequestNoteCache.getInstance(project);
+    return loadNotes(parent, project, notes -> cache.update(serverUrl, mergeRequest, notes));
+  }
 
-      return commentsListWorker;
+  /**
+   * Downloads all comments of merge request in background, replacing cached ones that might be edited or deleted since
+   */
+  public CompletableFuture<List<GitlabNote>> reloadComments(@NotNull Disposable parent, @NotNull Project project) {
+    MergeRequestNoteCache cache = MergeRequestNoteCache.getInstance(project);
+    return loadNotes(parent, project, notes -> cache.replace(serverUrl, mergeRequest, notes));
+  }
+
+  private CompletableFuture<List<GitlabNote>> loadNotes(Disposable parent, Project project, Function<Iterator<GitlabNote>, List<GitlabNote>> toCache) {
+    return GitLabUtil.computeValueInBackground(parent, indicator -> {
+      try (Stream<GitlabNote> notes = settingsState.api(project, file).streamMergeRequestNotes(mergeRequest)) {
+        return toCache.apply(notes.iterator());
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
     });
   }
 
+  /**
+   * Worker with cached comments of merge request, so they can be shown before {@link #loadComments} finishes
+   */
+  public static GitLabCommentsListWorker create(@NotNull final Project project, @NotNull final GitlabMergeRequest mergeRequest, VirtualFile file) {
+    GitLabCommentsListWorker commentsListWorker = new GitLabCommentsListWorker();
+    commentsListWorker.setMergeRequest(mergeRequest);
+    commentsListWorker.file = file;
+    commentsListWorker.serverUrl = settingsState.currentGitlabServer(project, file).getApiUrl();
+    commentsListWorker.setComments(MergeRequestNoteCache.getInstance(project).getCached(commentsListWorker.serverUrl, mergeRequest));
+    return commentsListWorker;
+  }
+
 }
@@ -0,0 +1,133 @@
+package com.ppolivka.gitlabprojects.comment;
+
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import org.gitlab.api.models.GitlabMergeRequest;
+import org.gitlab.api.models.GitlabNote;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Notes of recently viewed merge requests, oldest first
+ * Note ids grow with time, so only notes with id above the highest cached one need to be downloaded.
+ * Notes edited or deleted after they were cached stay as they were until merge request notes are replaced
+ * by a full reload. Merge requests are identified by server and id, least recently used ones are evicted
+ * when there are more than the limit.
+ */
+public class MergeRequestNoteCache {
+
+    static final int MAX_MERGE_REQUESTS = 50;
+
+    private final int maxMergeRequests;
+    private final Map<String, List<GitlabNote>> notes = new LinkedHashMap<>(16, 0.75f, true);
+
+    public MergeRequestNoteCache() {
+        this(MAX_MERGE_REQUESTS);
+    }
+
+    MergeRequestNoteCache(int maxMergeRequests) {
+        this.maxMergeRequests = maxMergeRequests;
+    }
+
+    public static MergeRequestNoteCache getInstance(@NotNull Project project) {
+        return ServiceManager.getService(project, MergeRequestNoteCache.class);
+    }
+
+    /**
+     * @return cached notes of merge request, empty when merge request was not loaded yet
+     */
+    public synchronized List<GitlabNote> getCached(@NotNull String serverUrl, @NotNull GitlabMergeRequest mergeRequest) {
+        List<GitlabNote> cached = notes.get(key(serverUrl, mergeRequest));
+        return cached != null ? new ArrayList<>(cached) : new ArrayList<>();
+    }
+
+    /**
+     * Adds notes that are not cached yet and returns all notes of the merge request
+     * Iterator is consumed only until first cached note, so pages of already known notes are never requested.
+     *
+     * @param newestFirst notes of merge request ordered from the newest
+     */
+    public List<GitlabNote> update(@NotNull String serverUrl, @NotNull GitlabMergeRequest mergeRequest, @NotNull Iterator<GitlabNote> newestFirst) {
+        Integer lastSeenId = lastSeenId(serverUrl, mergeRequest);
+        List<GitlabNote> newer = new ArrayList<>();
+        while (newestFirst.hasNext()) {
+            GitlabNote note = newestFirst.next();
+            if (lastSeenId != null && note.getId() <= lastSeenId) {
+                break;
+            }
+            newer.add(note);
+        }
+        Collections.reverse(newer);
+
+        synchronized (this) {
+            List<GitlabNote> cached = cached(serverUrl, mergeRequest);
+            for (GitlabNote note : newer) {
+                addIfAbsent(cached, note);
+            }
+            return new ArrayList<>(cached);
+        }
+    }
+
+    /**
+     * Replaces cached notes with all notes of the merge request, so edited and deleted notes are not listed stale
+     *
+     * @param newestFirst notes of merge request ordered from the newest
+     */
+    public List<GitlabNote> replace(@NotNull String serverUrl, @NotNull GitlabMergeRequest mergeRequest, @NotNull Iterator<GitlabNote> newestFirst) {
+        List<GitlabNote> all = new ArrayList<>();
+        newestFirst.forEachRemaining(all::add);
+        Collections.reverse(all);
+
+        synchronized (this) {
+            List<GitlabNote> cached = cached(serverUrl, mergeRequest);
+            cached.clear();
+            cached.addAll(all);
+            return new ArrayList<>(cached);
+        }
+    }
+
+    /**
+     * Adds note created by current user, so it is listed without downloading notes again
+     */
+    public synchronized List<GitlabNote> add(@NotNull String serverUrl, @NotNull GitlabMergeRequest mergeRequest, @NotNull GitlabNote note) {
+        List<GitlabNote> cached = cached(serverUrl, mergeRequest);
+        addIfAbsent(cached, note);
+        return new ArrayList<>(cached);
+    }
+
+    synchronized Integer lastSeenId(String serverUrl, GitlabMergeRequest mergeRequest) {
+        List<GitlabNote> cached = notes.get(key(serverUrl, mergeRequest));
+        if (cached == null || cached.isEmpty()) {
+            return null;
+        }
+        return cached.stream().map(GitlabNote::getId).max(Integer::compareTo).orElse(null);
+    }
+
+    synchronized int size() {
+        return notes.size();
+    }
+
+    private List<GitlabNote> cached(String serverUrl, GitlabMergeRequest mergeRequest) {
+        List<GitlabNote> cached = notes.computeIfAbsent(key(serverUrl, mergeRequest), key -> new ArrayList<>());
+        Iterator<List<GitlabNote>> eldest = notes.values().iterator();
+        while (notes.size() > maxMergeRequests) {
+            eldest.next();
+            eldest.remove();
+        }
+        return cached;
+    }
+
+    private static String key(String serverUrl, GitlabMergeRequest mergeRequest) {
+        return serverUrl + "#" + mergeRequest.getId();
+    }
+
+    private static void addIfAbsent(List<GitlabNote> cached, GitlabNote note) {
+        for (GitlabNote cachedNote : cached) {
+            if (Objects.equals(cachedNote.getId(), note.getId())) {
+                return;
+            }
+        }
+        cached.add(note);
+    }
+}
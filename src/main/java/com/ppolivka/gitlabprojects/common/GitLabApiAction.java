@@ -3,18 +3,21 @@ package com.ppolivka.gitlabprojects.common;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.actionSystem.CommonDataKeys;
 import com.intellij.openapi.options.ConfigurationException;
-import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.project.DumbAwareAction;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.util.containers.Convertor;
 import com.ppolivka.gitlabprojects.configuration.SettingsDialog;
 import com.ppolivka.gitlabprojects.configuration.SettingsState;
 import com.ppolivka.gitlabprojects.util.GitLabUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.ide.PooledThreadExecutor;
 
 import javax.swing.*;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import static com.ppolivka.gitlabprojects.util.MessageUtil.showErrorDialog;
 
@@ -28,6 +31,9 @@ public abstract class GitLabApiAction extends DumbAwareAction {
 
     protected static SettingsState settingsState = SettingsState.getInstance();
 
+    /** Servers with background revalidation running, so repeated actions do not start another one */
+    private static final Set<String> revalidationsInProgress = ConcurrentHashMap.newKeySet();
+
     protected Project project;
     protected VirtualFile file;
 
@@ -51,11 +57,7 @@ public abstract class GitLabApiAction extends DumbAwareAction {
             return;
         }
 
-        if(!validateGitLabApi(project, file)) {
-            return;
-        }
-
-        apiValidAction(anActionEvent);
+        validateGitLabApi(project, file, () -> apiValidAction(anActionEvent));
     }
 
     /**
@@ -68,24 +70,33 @@ public abstract class GitLabApiAction extends DumbAwareAction {
 
     /**
      * Validate git lab api settings
-     * If API is not valid, Setting dialog will be displayed
-     * If API is still not configured after that false is returned
+     * Validation runs in background, if API is not valid, Setting dialog will be displayed
+     * If API is still not configured after that, error is shown and onValid is not called
      *
      * @param project the project
-     * @return true if API is OK, false if not
+     * @param onValid called on event dispatch thread once API is OK
      */
-    public static boolean validateGitLabApi(@NotNull Project project, VirtualFile virtualFile) {
-        Boolean isApiSetup = GitLabUtil.computeValueInModal(project, "Validating GitLab Api...",false, new Convertor<ProgressIndicator, Boolean>() {
-            @Override
-            public Boolean convert(ProgressIndicator progressIndicator) {
-                try {
-                    settingsState.isApiValid(project, virtualFile);
-                    return true;
-                } catch (Throwable e) {
-                    return false;
-                }
+    public static void validateGitLabApi(@NotNull Project project, VirtualFile virtualFile, @NotNull Runnable onValid) {
+        if (isRecentlyValidated(project, virtualFile)) {
+            onValid.run();
+            return;
+        }
+        CompletableFuture<Boolean> validation = GitLabUtil.computeValueInBackground(project, indicator -> {
+            settingsState.isApiValid(project, virtualFile);
+            return true;
+        });
+        GitLabUtil.whenLoaded(project, validation, isApiSetup -> {
+            if (configureWhenInvalid(project, isApiSetup)) {
+                onValid.run();
+            }
+        }, e -> {
+            if (configureWhenInvalid(project, false)) {
+                onValid.run();
             }
         });
+    }
+
+    private static boolean configureWhenInvalid(@NotNull Project project, boolean isApiSetup) {
         boolean isOk = true;
         if (!isApiSetup) {
             //Git Lab Not configured
@@ -108,4 +119,37 @@ public abstract class GitLabApiAction extends DumbAwareAction {
         return isOk;
     }
 
+    /**
+     * Successful validation is trusted for configured time, so actions do not wait for the modal check
+     * Once older than half of that time, it is refreshed in background. Token rejected by any call
+     * clears the validation and the next action goes through the blocking check again.
+     * At most one refresh per server runs at a time.
+     */
+    private static boolean isRecentlyValidated(@NotNull Project project, VirtualFile virtualFile) {
+        Long age;
+        String serverUrl;
+        try {
+            serverUrl = settingsState.currentGitlabServer(project, virtualFile).getApiUrl();
+            age = settingsState.getApiValidationAge(project, virtualFile);
+        } catch (Throwable e) {
+            return false;
+        }
+        long ttl = TimeUnit.MINUTES.toMillis(settingsState.getApiValidationTtlMinutes());
+        if (age == null || age >= ttl) {
+            return false;
+        }
+        if (age >= ttl / 2 && revalidationsInProgress.add(serverUrl)) {
+            PooledThreadExecutor.INSTANCE.execute(() -> {
+                try {
+                    settingsState.isApiValid(project, virtualFile);
+                } catch (Throwable ignored) {
+                    // 401 already cleared the validation, other failures let it expire
+                } finally {
+                    revalidationsInProgress.remove(serverUrl);
+                }
+            });
+        }
+        return true;
+    }
+
 }
@@ -1,16 +1,21 @@
 package com.ppolivka.gitlabprojects.component;
 
+import com.intellij.openapi.diagnostic.Logger;
 import com.ppolivka.gitlabprojects.merge.request.EmptyUser;
 import com.ppolivka.gitlabprojects.merge.request.SearchableUser;
 import com.ppolivka.gitlabprojects.merge.request.SearchableUsers;
+import org.jetbrains.ide.PooledThreadExecutor;
 
 import javax.swing.*;
+import javax.swing.Timer;
 import java.awt.event.ItemEvent;
 import java.awt.event.ItemListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.util.*;
-import java.util.Timer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 /**
  * Searchable ComboBox model with autocomplete and background loading
@@ -19,57 +24,123 @@ import java.util.Timer;
  * @since 1.4.0
  */
 public class SearchBoxModel extends AbstractListModel implements ComboBoxModel, KeyListener, ItemListener {
+
+    private static final Logger LOG = Logger.getInstance(SearchBoxModel.class);
+
+    private static final int SEARCH_DELAY = 200;
+
     private JComboBox comboBox;
     private transient ComboBoxEditor comboBoxEditor;
-    private SearchableUsers searchableUsers;
+    private Searchable<SearchableUser, String> searchable;
+    private Supplier<Collection<SearchableUser>> initialModel;
+    private ExecutorService executor;
 
     private List<SearchableUser> data = new ArrayList<>();
     private SearchableUser selectedUser = null;
 
-    private volatile long lastKeyPressTime = 0L;
-    private transient Timer timer;
+    private transient Timer searchTimer;
+    private String pendingQuery;
 
     private String lastQuery = "";
+    private long searchGeneration = 0;
+    private Future<?> runningSearch;
 
     public SearchBoxModel(JComboBox comboBox, SearchableUsers searchableUsers) {
+        this(comboBox, searchableUsers, searchableUsers::getInitialModel, PooledThreadExecutor.INSTANCE);
+        searchableUsers.whenMembersLoaded(() -> SwingUtilities.invokeLater(this::initialModelLoaded));
+    }
+
+    SearchBoxModel(JComboBox comboBox, Searchable<SearchableUser, String> searchable, Collection<SearchableUser> initialModel, ExecutorService executor) {
+        this(comboBox, searchable, () -> initialModel, executor);
+    }
+
+    /**
+     * @param executor executor running searches, search is never run on event dispatch thread
+     */
+    private SearchBoxModel(JComboBox comboBox, Searchable<SearchableUser, String> searchable, Supplier<Collection<SearchableUser>> initialModel, ExecutorService executor) {
         this.comboBox = comboBox;
         this.comboBoxEditor = comboBox.getEditor();
         this.comboBoxEditor.getEditorComponent().addKeyListener(this);
-        this.searchableUsers = searchableUsers;
-        this.data.addAll(searchableUsers.getInitialModel());
-        timer = new Timer();
+        this.searchable = searchable;
+        this.initialModel = initialModel;
+        this.executor = executor;
+        this.data.addAll(initialModel.get());
+        searchTimer = new Timer(SEARCH_DELAY, e -> startSearch(pendingQuery));
+        searchTimer.setRepeats(false);
     }
 
+    /**
+     * Search is delayed until user stops typing
+     */
     private void updateModel(String in) {
-        timer.schedule(new TimerTask() {
-            @Override
-            public void run() {
+        pendingQuery = in;
+        searchTimer.restart();
+    }
+
+    /**
+     * Starts search on background thread, called on event dispatch thread
+     * Search started before is cancelled and its result is ignored, only result of the latest query is shown
+     * Failed search replaces the loading row with an error row.
+     */
+    void startSearch(String in) {
+        if (in == null || "".equals(in)) {
+            cancelRunningSearch();
+            lastQuery = "";
+            data = new ArrayList<>(initialModel.get());
+            dataChanged();
+        } else if (!in.equals(lastQuery)) {
+            cancelRunningSearch();
+            lastQuery = in;
+            long generation = searchGeneration;
+            data = Arrays.asList(new EmptyUser(in), new EmptyUser("loading..."));
+            dataChanged();
+            runningSearch = executor.submit(() -> {
+                Collection<SearchableUser> users;
+                try {
+                    users = searchable.search(in);
+                } catch (RuntimeException e) {
+                    LOG.warn("Cannot search users matching " + in, e);
+                    users = Collections.singletonList(new EmptyUser("search failed"));
+                }
+                Collection<SearchableUser> found = users;
                 SwingUtilities.invokeLater(() -> {
-                    if((System.currentTimeMillis() - lastKeyPressTime) > 200) {
-                        if(in != null && !"".equals(in) && !in.equals(lastQuery)) {
-                            data.clear();
-                            data = Arrays.asList(new EmptyUser(in), new EmptyUser("loading..."));
-                            dataChanged();
-                            data = new ArrayList<>();
-                            data.add(new EmptyUser(in));
-                            data.addAll(searchableUsers.search(in));
-                            lastQuery = in;
-                            dataChanged();
-                        } else if (in == null || "".equals(in)){
-                            data.clear();
-                            data.addAll(searchableUsers.getInitialModel());
-                            dataChanged();
-                        }
+                    if (generation == searchGeneration) {
+                        List<SearchableUser> result = new ArrayList<>();
+                        result.add(new EmptyUser(in));
+                        result.addAll(found);
+                        data = result;
+                        runningSearch = null;
+                        dataChanged();
                     }
                 });
-            }
-        }, 200);
+            });
+        }
+    }
+
+    /**
+     * Members loaded after dialog was opened are shown unless user already searches for something
+     */
+    private void initialModelLoaded() {
+        if ("".equals(lastQuery) && runningSearch == null) {
+            data = new ArrayList<>(initialModel.get());
+            super.fireContentsChanged(this, 0, data.size());
+        }
+    }
+
+    private void cancelRunningSearch() {
+        searchGeneration++;
+        if (runningSearch != null) {
+            runningSearch.cancel(true);
+            runningSearch = null;
+        }
     }
 
     private void dataChanged() {
         super.fireContentsChanged(this, 0, data.size());
-        comboBox.hidePopup();
-        comboBox.showPopup();
+        if (comboBox.isShowing()) {
+            comboBox.hidePopup();
+            comboBox.showPopup();
+        }
         if (!data.isEmpty()) {
             comboBox.setSelectedIndex(0);
         }
@@ -88,7 +159,7 @@ public class SearchBoxModel extends AbstractListModel implements ComboBoxModel,
 
     @Override
     public void keyPressed(KeyEvent e) {
-        lastKeyPressTime = System.currentTimeMillis();
+        //noop
     }
 
     @Override
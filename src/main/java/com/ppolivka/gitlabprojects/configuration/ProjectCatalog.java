@@ -0,0 +1,249 @@
+package com.ppolivka.gitlabprojects.configuration;
+
+import com.intellij.openapi.components.PersistentStateComponent;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.components.State;
+import com.intellij.openapi.components.Storage;
+import com.intellij.openapi.diagnostic.Logger;
+import com.ppolivka.gitlabprojects.api.ApiFacade;
+import com.ppolivka.gitlabprojects.api.dto.ProjectDto;
+import com.ppolivka.gitlabprojects.api.dto.SimpleProjectDto;
+import com.ppolivka.gitlabprojects.dto.GitlabServer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.ide.PooledThreadExecutor;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Local catalog of GitLab projects per server, used by checkout dialog
+ * Catalog is synced incrementally, only projects with activity since last sync are downloaded
+ */
+@State(
+        name = "GitLabProjectCatalog",
+        storages = {
+                @Storage("$APP_CONFIG$/gitlab-project-catalog.xml")
+        }
+)
+public class ProjectCatalog implements PersistentStateComponent<ProjectCatalog.CatalogState> {
+
+    private static final Logger LOG = Logger.getInstance(ProjectCatalog.class);
+
+    /** Deleted projects are not visible in activity delta, full sync is needed to prune them */
+    private static final long FULL_SYNC_INTERVAL = TimeUnit.HOURS.toMillis(24);
+
+    /** Activity filter is shifted back a bit, so clock skew between IDE and server does not lose updates */
+    private static final long SYNC_OVERLAP = TimeUnit.MINUTES.toMillis(5);
+
+    /** Rough per entry overhead of list slot, dto and string headers */
+    private static final long ENTRY_OVERHEAD_BYTES = 200;
+
+    private CatalogState catalogState = new CatalogState();
+
+    private final Set<String> syncsInProgress = ConcurrentHashMap.newKeySet();
+    /** Count of removals per server, sync that overlaps removal of its server does not store its result */
+    private final Map<String, Integer> removals = new HashMap<>();
+    private final Function<GitlabServer, ApiFacade> apis;
+    private final LongSupplier clock;
+
+    public ProjectCatalog() {
+        this(server -> SettingsState.getInstance().api(server), System::currentTimeMillis);
+    }
+
+    ProjectCatalog(Function<GitlabServer, ApiFacade> apis, LongSupplier clock) {
+        this.apis = apis;
+        this.clock = clock;
+    }
+
+    public static ProjectCatalog getInstance() {
+        return ServiceManager.getService(ProjectCatalog.class);
+    }
+
+    /**
+     * Copy of the catalog, so it is saved consistently while syncs running on pooled threads change it
+     */
+    @Nullable
+    @Override
+    public synchronized CatalogState getState() {
+        CatalogState snapshot = new CatalogState();
+        if (catalogState.servers != null) {
+            for (Map.Entry<String, ServerProjects> entry : catalogState.servers.entrySet()) {
+                snapshot.servers.put(entry.getKey(), entry.getValue().copy());
+            }
+        }
+        return snapshot;
+    }
+
+    @Override
+    public synchronized void loadState(CatalogState state) {
+        catalogState = state;
+    }
+
+    public static class CatalogState {
+        public Map<String, ServerProjects> servers = new HashMap<>();
+    }
+
+    public static class ServerProjects {
+        public long lastSync;
+        public long lastFullSync;
+        public List<ProjectDto> projects = new ArrayList<>();
+
+        ServerProjects copy() {
+            ServerProjects copy = new ServerProjects();
+            copy.lastSync = lastSync;
+            copy.lastFullSync = lastFullSync;
+            copy.projects = new ArrayList<>(projects);
+            return copy;
+        }
+    }
+
+    public synchronized boolean isCached(@NotNull GitlabServer server) {
+        return serverProjects(server) != null;
+    }
+
+    @NotNull
+    public synchronized Collection<ProjectDto> getCachedProjects(@NotNull GitlabServer server) {
+        ServerProjects serverProjects = serverProjects(server);
+        if (serverProjects == null) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(serverProjects.projects);
+    }
+
+    /**
+     * Brings catalog of the server up to date and returns its projects
+     * Full listing is done for servers that were never synced or when last full sync is too old,
+     * otherwise only projects with recent activity are downloaded and merged into the catalog.
+     * When the server is removed while its projects are downloaded, nothing is stored and no projects are returned.
+     */
+    @NotNull
+    public Collection<ProjectDto> sync(@NotNull GitlabServer server) throws IOException {
+        long now = clock.getAsLong();
+        Date activityAfter = null;
+        int removalsBefore;
+        synchronized (this) {
+            removalsBefore = removals.getOrDefault(server.getApiUrl(), 0);
+            ServerProjects serverProjects = serverProjects(server);
+            if (serverProjects != null && now - serverProjects.lastFullSync < FULL_SYNC_INTERVAL) {
+                activityAfter = new Date(serverProjects.lastSync - SYNC_OVERLAP);
+            }
+        }
+
+        List<SimpleProjectDto> changedProjects = apis.apply(server).getMembershipProjects(activityAfter);
+
+        synchronized (this) {
+            ServerProjects serverProjects = serverProjects(server);
+            if (removals.getOrDefault(server.getApiUrl(), 0) != removalsBefore || (serverProjects == null && activityAfter != null)) {
+                // delta of removed server must not be stored as its full listing
+                return Collections.emptyList();
+            }
+            if (activityAfter == null) {
+                serverProjects = new ServerProjects();
+                serverProjects.lastFullSync = now;
+            }
+            serverProjects.projects = merge(activityAfter == null ? Collections.emptyList() : serverProjects.projects, changedProjects);
+            serverProjects.lastSync = now;
+            catalogState.servers.put(server.getApiUrl(), serverProjects);
+            LOG.debug("Catalog has " + size() + " projects, about " + getEstimatedBytes() + " bytes");
+            return new ArrayList<>(serverProjects.projects);
+        }
+    }
+
+    /**
+     * Syncs catalog of the server on pooled thread, does nothing when sync of the server is already running
+     */
+    public void syncInBackground(@NotNull GitlabServer server) {
+        if (!syncsInProgress.add(server.getApiUrl())) {
+            return;
+        }
+        PooledThreadExecutor.INSTANCE.execute(() -> {
+            try {
+                sync(server);
+            } catch (Throwable e) {
+                LOG.warn("Cannot sync GitLab projects of " + server.getApiUrl(), e);
+            } finally {
+                syncsInProgress.remove(server.getApiUrl());
+            }
+        });
+    }
+
+    /**
+     * Forgets catalog of the server, used when server is removed from settings
+     */
+    public synchronized void remove(@NotNull GitlabServer server) {
+        removals.merge(server.getApiUrl(), 1, Integer::sum);
+        if (catalogState.servers != null) {
+            catalogState.servers.remove(server.getApiUrl());
+        }
+    }
+
+    /**
+     * Number of cataloged projects of all servers
+     */
+    public synchronized int size() {
+        return allServerProjects().stream().mapToInt(serverProjects -> serverProjects.projects.size()).sum();
+    }
+
+    /**
+     * Approximate heap used by cataloged projects of all servers, in bytes
+     */
+    public synchronized long getEstimatedBytes() {
+        long bytes = 0;
+        for (ServerProjects serverProjects : allServerProjects()) {
+            for (ProjectDto project : serverProjects.projects) {
+                bytes += ENTRY_OVERHEAD_BYTES
+                        + chars(project.getName())
+                        + chars(project.getNamespace())
+                        + chars(project.getSshUrl())
+                        + chars(project.getHttpUrl());
+            }
+        }
+        return bytes;
+    }
+
+    private Collection<ServerProjects> allServerProjects() {
+        return catalogState.servers != null ? catalogState.servers.values() : Collections.emptyList();
+    }
+
+    private static long chars(String value) {
+        return value == null ? 0 : 2L * value.length();
+    }
+
+    @Nullable
+    private ServerProjects serverProjects(GitlabServer server) {
+        if (catalogState.servers == null) {
+            catalogState.servers = new HashMap<>();
+        }
+        return catalogState.servers.get(server.getApiUrl());
+    }
+
+    static List<ProjectDto> merge(Collection<ProjectDto> cached, Collection<SimpleProjectDto> changedProjects) {
+        Map<Integer, ProjectDto> projects = new LinkedHashMap<>();
+        for (ProjectDto project : cached) {
+            projects.put(project.getId(), project);
+        }
+        for (SimpleProjectDto changedProject : changedProjects) {
+            if (changedProject.isArchived()) {
+                projects.remove(changedProject.getId());
+            } else {
+                projects.put(changedProject.getId(), toDto(changedProject));
+            }
+        }
+        return new ArrayList<>(projects.values());
+    }
+
+    static ProjectDto toDto(SimpleProjectDto gitlabProject) {
+        ProjectDto projectDto = new ProjectDto();
+        projectDto.setId(gitlabProject.getId());
+        projectDto.setName(gitlabProject.getName());
+        projectDto.setNamespace(gitlabProject.getNamespace() != null ? gitlabProject.getNamespace().getName() : null);
+        projectDto.setHttpUrl(gitlabProject.getHttpUrl());
+        projectDto.setSshUrl(gitlabProject.getSshUrl());
+        return projectDto;
+    }
+}
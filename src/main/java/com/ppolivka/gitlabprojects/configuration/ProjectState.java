@@ -2,11 +2,16 @@ package com.ppolivka.gitlabprojects.configuration;
 
 import com.intellij.openapi.components.*;
 import com.intellij.openapi.project.Project;
+import git4idea.repo.GitRemote;
+import git4idea.repo.GitRepository;
+import org.gitlab.api.models.GitlabProject;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Project specific setting
@@ -24,18 +29,25 @@ public class ProjectState implements PersistentStateComponent<ProjectState.State
 
     private State projectState = new State();
 
+    public ProjectState() {
+    }
+
+    public ProjectState(@NotNull Project project) {
+        project.getMessageBus().connect(project).subscribe(GitRepository.GIT_REPO_CHANGE, this::retainRemotes);
+    }
+
     public static ProjectState getInstance(@NotNull Project project) {
         return ServiceManager.getService(project, ProjectState.class);
     }
 
     @Nullable
     @Override
-    public State getState() {
+    public synchronized State getState() {
         return projectState;
     }
 
     @Override
-    public void loadState(State state) {
+    public synchronized void loadState(State state) {
         projectState = state;
     }
 
@@ -43,21 +55,84 @@ public class ProjectState implements PersistentStateComponent<ProjectState.State
         public String lastMergedBranch;
         public Boolean deleteMergedBranch;
         public Boolean mergeAsWorkInProgress;
-        public Map<Integer, Integer> projectIdMap = new HashMap();
+        public Map<String, RemoteProject> remoteProjects = new HashMap<>();
+    }
+
+    /**
+     * GitLab project resolved for one remote URL
+     */
+    public static class RemoteProject {
+        public String repositoryRoot;
+        public String serverUrl;
+        public Integer projectId;
+        public String pathWithNamespace;
+        public long verifiedAt;
+
+        public boolean isFresh(long ttlMillis) {
+            return System.currentTimeMillis() - verifiedAt < ttlMillis;
+        }
+
+        /**
+         * Project with id and path only, enough for merge request calls
+         */
+        public GitlabProject toGitlabProject() {
+            GitlabProject gitlabProject = new GitlabProject();
+            gitlabProject.setId(projectId);
+            gitlabProject.setPathWithNamespace(pathWithNamespace);
+            if (pathWithNamespace != null) {
+                gitlabProject.setName(pathWithNamespace.substring(pathWithNamespace.lastIndexOf('/') + 1));
+            }
+            return gitlabProject;
+        }
+    }
+
+    @Nullable
+    public synchronized RemoteProject getRemoteProject(@NotNull String remoteUrl) {
+        return remoteProjects().get(remoteUrl);
+    }
+
+    @Nullable
+    public Integer getProjectId(@NotNull String remoteUrl) {
+        RemoteProject remoteProject = getRemoteProject(remoteUrl);
+        return remoteProject != null ? remoteProject.projectId : null;
     }
 
-    public Integer getProjectId(String gitRepository) {
-        if(projectState.projectIdMap != null) {
-            return projectState.projectIdMap.get(gitRepository.hashCode());
+    /**
+     * Remembers project of the remote as verified right now
+     */
+    public synchronized void setRemoteProject(@NotNull String remoteUrl, @Nullable GitRepository repository, @Nullable String serverUrl, @NotNull GitlabProject gitlabProject) {
+        RemoteProject remoteProject = new RemoteProject();
+        remoteProject.repositoryRoot = repository != null ? repository.getRoot().getPath() : null;
+        remoteProject.serverUrl = serverUrl;
+        remoteProject.projectId = gitlabProject.getId();
+        remoteProject.pathWithNamespace = gitlabProject.getPathWithNamespace();
+        remoteProject.verifiedAt = System.currentTimeMillis();
+        remoteProjects().put(remoteUrl, remoteProject);
+    }
+
+    public synchronized void invalidateRemoteProject(@NotNull String remoteUrl) {
+        remoteProjects().remove(remoteUrl);
+    }
+
+    /**
+     * Drops cached projects of the repository remotes that were removed or changed their URL
+     */
+    private void retainRemotes(@NotNull GitRepository repository) {
+        String root = repository.getRoot().getPath();
+        Set<String> remoteUrls = new HashSet<>();
+        for (GitRemote remote : repository.getRemotes()) {
+            remoteUrls.addAll(remote.getUrls());
+        }
+        synchronized (this) {
+            remoteProjects().entrySet().removeIf(entry -> root.equals(entry.getValue().repositoryRoot) && !remoteUrls.contains(entry.getKey()));
         }
-        return null;
     }
 
-    public void setProjectId(String gitRepository, Integer projectId) {
-        if(projectState.projectIdMap == null) {
-            projectState.projectIdMap = new HashMap<>();
+    private Map<String, RemoteProject> remoteProjects() {
+        if (projectState.remoteProjects == null) {
+            projectState.remoteProjects = new HashMap<>();
         }
-        projectState.projectIdMap.put(gitRepository.hashCode(), projectId);
+        return projectState.remoteProjects;
     }
 
     public String getLastMergedBranch() {
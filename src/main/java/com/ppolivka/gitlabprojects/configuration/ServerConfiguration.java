@@ -37,6 +37,7 @@ public class ServerConfiguration extends DialogWrapper {
     private JButton tokenPage;
     private JComboBox checkoutMethod;
     private JCheckBox removeOnMerge;
+    private JComboBox diffEngine;
 
     protected ServerConfiguration(@Nullable GitlabServer gitlabServer) {
         super(false);
@@ -109,6 +110,7 @@ public class ServerConfiguration extends DialogWrapper {
         }
         gitlabServer.setPreferredConnection(GitlabServer.CheckoutType.values()[checkoutMethod.getSelectedIndex()]);
         gitlabServer.setRemoveSourceBranch(removeOnMerge.isSelected());
+        gitlabServer.setDiffEngine(GitlabServer.DiffEngine.values()[diffEngine.getSelectedIndex()]);
         settingsState.addServer(gitlabServer);
     }
 
@@ -144,11 +146,13 @@ public class ServerConfiguration extends DialogWrapper {
 
     private void setupModel() {
         checkoutMethod.setModel(new EnumComboBoxModel(GitlabServer.CheckoutType.class));
+        diffEngine.setModel(new EnumComboBoxModel(GitlabServer.DiffEngine.class));
     }
 
     private void fillFormFromDto() {
         checkoutMethod.setSelectedIndex(gitlabServer.getPreferredConnection().ordinal());
         removeOnMerge.setSelected(gitlabServer.isRemoveSourceBranch());
+        diffEngine.setSelectedIndex(gitlabServer.getDiffEngine().ordinal());
         apiURl.setText(gitlabServer.getApiUrl());
         repositoryUrl.setText(gitlabServer.getRepositoryUrl());
         token.setText(gitlabServer.getApiToken());
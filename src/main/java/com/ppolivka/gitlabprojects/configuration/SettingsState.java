@@ -4,10 +4,12 @@ import com.intellij.openapi.components.PersistentStateComponent;
 import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.components.State;
 import com.intellij.openapi.components.Storage;
+import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.util.xmlb.XmlSerializerUtil;
 import com.ppolivka.gitlabprojects.api.ApiFacade;
+import com.ppolivka.gitlabprojects.api.ApiFacadeRegistry;
 import com.ppolivka.gitlabprojects.api.dto.ProjectDto;
 import com.ppolivka.gitlabprojects.api.dto.ServerDto;
 import com.ppolivka.gitlabprojects.dto.GitlabServer;
@@ -16,11 +18,12 @@ import git4idea.repo.GitRemote;
 import git4idea.repo.GitRepository;
 import lombok.SneakyThrows;
 import org.apache.commons.lang.StringUtils;
-import org.gitlab.api.models.GitlabProject;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.ide.PooledThreadExecutor;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.*;
 
 import static com.ppolivka.gitlabprojects.util.GitLabUtil.isGitLabUrl;
 
@@ -39,16 +42,29 @@ import static com.ppolivka.gitlabprojects.util.GitLabUtil.isGitLabUrl;
 )
 public class SettingsState implements PersistentStateComponent<SettingsState> {
 
+    private static final Logger LOG = Logger.getInstance(SettingsState.class);
+
+    private static final int MAX_PARALLEL_SERVER_LOADS = 4;
+    private static final long SERVER_LOAD_TIMEOUT = TimeUnit.SECONDS.toMillis(60);
+
     public String host;
 
     public String token;
 
     public boolean defaultRemoveBranch;
 
-    public Collection<ProjectDto> projects = new ArrayList<>();
+    public int pageFetchParallelism = 4;
+
+    public int remoteProjectTtlHours = 24;
+
+    public int apiValidationTtlMinutes = 30;
+
+    public int fetchFreshnessSeconds = 60;
 
     public Collection<GitlabServer> gitlabServers = new ArrayList<>();
 
+    private final ApiFacadeRegistry apiFacadeRegistry = new ApiFacadeRegistry();
+
     public static SettingsState getInstance() {
         return ServiceManager.getService(SettingsState.class);
     }
@@ -67,53 +83,146 @@ public class SettingsState implements PersistentStateComponent<SettingsState> {
     public void isApiValid(Project project, VirtualFile file) throws IOException {
         api(project, file).getSession();
     }
+    /**
+     * Age of last successful validation of the server used by given file, in millis
+     *
+     * @return age or null when server was not validated or rejected the token since then
+     */
+    public Long getApiValidationAge(Project project, VirtualFile file) {
+        long validatedAt = api(project, file).getValidatedAt();
+        return validatedAt > 0 ? System.currentTimeMillis() - validatedAt : null;
+    }
+
     public void isApiValid(String host, String key) throws IOException {
         ApiFacade apiFacade = new ApiFacade();
         apiFacade.reload(host, key);
         apiFacade.getSession();
     }
 
-    public void reloadProjects(Collection<GitlabServer> servers) throws Throwable {
-        setProjects(new ArrayList<>());
+    /**
+     * Projects are served from local catalog, catalog of already known server is synced in background
+     * and changes are visible next time. Only servers without catalog are loaded synchronously.
+     * Servers that failed to load are left out of the map.
+     */
+    @SneakyThrows
+    public Map<GitlabServer, Collection<ProjectDto>> loadMapOfServersAndProjects(Collection<GitlabServer> servers) {
+        Map<GitlabServer, Collection<ProjectDto>> map = new LinkedHashMap<>();
+        loadProjects(servers, new ServerProjectsListener() {
+            @Override
+            public void projectsLoaded(GitlabServer server, Collection<ProjectDto> projects) {
+                map.put(server, projects);
+            }
+
+            @Override
+            public void loadingFailed(GitlabServer server, Throwable error) {
+                LOG.warn("Cannot load projects from " + server.getApiUrl(), error);
+            }
+        });
+        return map;
+    }
+
+    /**
+     * Loads projects of all servers, servers without local catalog are loaded concurrently on pooled threads,
+     * at most {@link #MAX_PARALLEL_SERVER_LOADS} at a time.
+     * Listener is notified on calling thread as soon as each server finishes, one slow or failing server
+     * does not hold back the others.
+     */
+    public void loadProjects(Collection<GitlabServer> servers, ServerProjectsListener listener) throws InterruptedException {
+        ProjectCatalog projectCatalog = ProjectCatalog.getInstance();
+        List<GitlabServer> serversToSync = new ArrayList<>();
         for(GitlabServer server : servers) {
-            reloadProjects(server);
+            if(projectCatalog.isCached(server)) {
+                listener.projectsLoaded(server, projectCatalog.getCachedProjects(server));
+                projectCatalog.syncInBackground(server);
+            } else {
+                serversToSync.add(server);
+            }
+        }
+        if(serversToSync.isEmpty()) {
+            return;
+        }
+
+        CompletionService<Collection<ProjectDto>> completionService = new ExecutorCompletionService<>(PooledThreadExecutor.INSTANCE);
+        Map<Future<Collection<ProjectDto>>, ServerLoading> pending = new HashMap<>();
+        Deque<GitlabServer> waiting = new ArrayDeque<>(serversToSync);
+        try {
+            submitWaiting(waiting, pending, completionService, projectCatalog);
+            while(!pending.isEmpty()) {
+                Future<Collection<ProjectDto>> done = completionService.poll(nextTimeoutCheck(pending.values()), TimeUnit.MILLISECONDS);
+                ServerLoading loading = done != null ? pending.remove(done) : null;
+                if(loading != null) {
+                    try {
+                        listener.projectsLoaded(loading.server, done.get());
+                    } catch (ExecutionException e) {
+                        listener.loadingFailed(loading.server, e.getCause());
+                    }
+                }
+                Iterator<Map.Entry<Future<Collection<ProjectDto>>, ServerLoading>> iterator = pending.entrySet().iterator();
+                while(iterator.hasNext()) {
+                    Map.Entry<Future<Collection<ProjectDto>>, ServerLoading> entry = iterator.next();
+                    if(entry.getValue().isTimedOut()) {
+                        iterator.remove();
+                        entry.getKey().cancel(true);
+                        listener.loadingFailed(entry.getValue().server, new TimeoutException("Loading of projects timed out"));
+                    }
+                }
+                submitWaiting(waiting, pending, completionService, projectCatalog);
+            }
+        } finally {
+            pending.keySet().forEach(future -> future.cancel(true));
         }
     }
 
-    @SneakyThrows
-    public Map<GitlabServer, Collection<ProjectDto>> loadMapOfServersAndProjects(Collection<GitlabServer> servers) {
-        Map<GitlabServer, Collection<ProjectDto>> map = new HashMap<>();
-        for(GitlabServer server : servers) {
-            Collection<ProjectDto> projects = loadProjects(server);
-            map.put(server, projects);
+    /**
+     * Submits waiting servers until {@link #MAX_PARALLEL_SERVER_LOADS} are loading, so pooled threads never wait for each other
+     */
+    private static void submitWaiting(Deque<GitlabServer> waiting, Map<Future<Collection<ProjectDto>>, ServerLoading> pending,
+                                      CompletionService<Collection<ProjectDto>> completionService, ProjectCatalog projectCatalog) {
+        while(pending.size() < MAX_PARALLEL_SERVER_LOADS && !waiting.isEmpty()) {
+            GitlabServer server = waiting.poll();
+            ServerLoading loading = new ServerLoading(server);
+            pending.put(completionService.submit(() -> {
+                loading.startedAt = System.currentTimeMillis();
+                return projectCatalog.sync(server);
+            }), loading);
         }
-        return map;
     }
 
-    public void reloadProjects(GitlabServer server) throws Throwable {
-        this.setProjects(loadProjects(server));
+    private static long nextTimeoutCheck(Collection<ServerLoading> loadings) {
+        long now = System.currentTimeMillis();
+        long next = SERVER_LOAD_TIMEOUT;
+        for(ServerLoading loading : loadings) {
+            if(loading.startedAt > 0) {
+                next = Math.min(next, loading.startedAt + SERVER_LOAD_TIMEOUT - now);
+            }
+        }
+        return Math.max(next, 1);
+    }
+
+    /**
+     * Receives projects of one server as soon as they are loaded
+     */
+    public interface ServerProjectsListener {
 
+        void projectsLoaded(GitlabServer server, Collection<ProjectDto> projects);
+
+        void loadingFailed(GitlabServer server, Throwable error);
     }
 
-    public Collection<ProjectDto> loadProjects(GitlabServer server) throws Throwable {
-        ApiFacade apiFacade = api(server);
+    private static class ServerLoading {
+        private final GitlabServer server;
+        private volatile long startedAt;
 
-        Collection<ProjectDto> projects = getProjects();
-        if(projects == null) {
-            projects = new ArrayList<>();
+        private ServerLoading(GitlabServer server) {
+            this.server = server;
         }
 
-        for (GitlabProject gitlabProject : apiFacade.getProjects()) {
-            ProjectDto projectDto = new ProjectDto();
-            projectDto.setName(gitlabProject.getName());
-            projectDto.setNamespace(gitlabProject.getNamespace().getName());
-            projectDto.setHttpUrl(gitlabProject.getHttpUrl());
-            projectDto.setSshUrl(gitlabProject.getSshUrl());
-            projects.add(projectDto);
+        /**
+         * Timeout is counted from the moment loading started, servers waiting for free thread are not timed out
+         */
+        private boolean isTimedOut() {
+            return startedAt > 0 && System.currentTimeMillis() - startedAt >= SERVER_LOAD_TIMEOUT;
         }
-        this.setProjects(projects);
-        return projects;
-
     }
 
     public ApiFacade api(Project project, VirtualFile file) {
@@ -125,7 +234,9 @@ public class SettingsState implements PersistentStateComponent<SettingsState> {
     }
 
     public ApiFacade api(GitlabServer serverDto) {
-        return new ApiFacade(serverDto.getApiUrl(), serverDto.getApiToken());
+        ApiFacade apiFacade = apiFacadeRegistry.get(serverDto);
+        apiFacade.setPageFetchParallelism(pageFetchParallelism);
+        return apiFacade;
     }
 
     //region Getters & Setters
@@ -154,12 +265,36 @@ public class SettingsState implements PersistentStateComponent<SettingsState> {
         this.defaultRemoveBranch = defaultRemoveBranch;
     }
 
-    public Collection<ProjectDto> getProjects() {
-        return projects;
+    public int getPageFetchParallelism() {
+        return pageFetchParallelism;
+    }
+
+    public void setPageFetchParallelism(int pageFetchParallelism) {
+        this.pageFetchParallelism = pageFetchParallelism;
+    }
+
+    public int getRemoteProjectTtlHours() {
+        return remoteProjectTtlHours;
+    }
+
+    public void setRemoteProjectTtlHours(int remoteProjectTtlHours) {
+        this.remoteProjectTtlHours = remoteProjectTtlHours;
+    }
+
+    public int getApiValidationTtlMinutes() {
+        return apiValidationTtlMinutes;
+    }
+
+    public void setApiValidationTtlMinutes(int apiValidationTtlMinutes) {
+        this.apiValidationTtlMinutes = apiValidationTtlMinutes;
+    }
+
+    public int getFetchFreshnessSeconds() {
+        return fetchFreshnessSeconds;
     }
 
-    public void setProjects(Collection<ProjectDto> projects) {
-        this.projects = projects;
+    public void setFetchFreshnessSeconds(int fetchFreshnessSeconds) {
+        this.fetchFreshnessSeconds = fetchFreshnessSeconds;
     }
 
     public Collection<GitlabServer> getGitlabServers() {
@@ -182,10 +317,14 @@ public class SettingsState implements PersistentStateComponent<SettingsState> {
                 changedServer.setRemoveSourceBranch(server.isRemoveSourceBranch());
             });
         }
+        apiFacadeRegistry.evict(server);
+        apiFacadeRegistry.retain(getGitlabServers());
     }
 
     public void deleteServer(GitlabServer server) {
         getGitlabServers().stream().filter(server1 -> server.getApiUrl().equals(server1.getApiUrl())).forEach(removedServer -> getGitlabServers().remove(removedServer));
+        apiFacadeRegistry.evict(server);
+        ProjectCatalog.getInstance().remove(server);
     }
     public GitlabServer currentGitlabServer(Project project, VirtualFile file) {
         GitRepository gitRepository = GitLabUtil.getGitRepository(project, file);
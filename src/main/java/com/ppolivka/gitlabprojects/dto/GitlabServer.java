@@ -11,6 +11,7 @@ public class GitlabServer {
     private String repositoryUrl = "";
     private CheckoutType preferredConnection = CheckoutType.SSH;
     private boolean removeSourceBranch = true;
+    private DiffEngine diffEngine = DiffEngine.LOCAL;
 
     @Override
     public String toString() {
@@ -22,4 +23,12 @@ public class GitlabServer {
         HTTPS;
     }
 
+    /**
+     * Where merge request diff is computed, the other one is used when the preferred fails
+     */
+    public enum DiffEngine {
+        LOCAL,
+        SERVER;
+    }
+
 }
@@ -6,25 +6,30 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Couple;
 import com.intellij.openapi.vcs.VcsException;
 import com.intellij.openapi.vcs.changes.Change;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.util.ThrowableConvertor;
+import com.ppolivka.gitlabprojects.merge.helper.ConcurrentGitCalls;
+import com.ppolivka.gitlabprojects.merge.helper.DiffInfoCache;
+import com.ppolivka.gitlabprojects.merge.helper.GitFetchCoordinator;
 import com.ppolivka.gitlabprojects.merge.info.BranchInfo;
 import com.ppolivka.gitlabprojects.merge.info.DiffInfo;
 import com.ppolivka.gitlabprojects.util.GitLabUtil;
 import git4idea.GitCommit;
+import git4idea.GitRevisionNumber;
 import git4idea.changes.GitChangeUtils;
 import git4idea.history.GitHistoryUtils;
 import git4idea.repo.GitRepository;
 import git4idea.ui.branch.GitCompareBranchesDialog;
-import git4idea.update.GitFetchResult;
-import git4idea.update.GitFetcher;
 import git4idea.util.GitCommitCompareInfo;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import org.jetbrains.ide.PooledThreadExecutor;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
@@ -50,39 +55,69 @@ public class GitLabDiffViewWorker {
 
 
     public void showDiffDialog(@NotNull final BranchInfo from, @NotNull final BranchInfo branch) {
-        DiffInfo info;
-        try {
-            info = GitLabUtil
-                    .computeValueInModal(project, "Collecting diff data...", new ThrowableConvertor<ProgressIndicator, DiffInfo, IOException>() {
-                        @Override
-                        public DiffInfo convert(ProgressIndicator indicator) throws IOException {
-                            return GitLabUtil.runInterruptable(indicator, () -> getDiffInfo(from, branch));
-                        }
-                    });
-        } catch (IOException e) {
-            showErrorDialog(project, "Can't collect diff data", CANNOT_SHOW_DIFF_INFO);
-            return;
-        }
+        DiffInfo info = collectDiffInfo(from, branch);
         if (info == null) {
             showErrorDialog(project, "Can't collect diff data", CANNOT_SHOW_DIFF_INFO);
             return;
         }
+        showDiffDialog(info);
+    }
 
+    public void showDiffDialog(@NotNull DiffInfo info) {
         GitCompareBranchesDialog dialog = new GitCompareBranchesDialog(project, info.getTo(), info.getFrom(), info.getInfo(), gitRepository, true);
         dialog.show();
+    }
 
+    /**
+     * Loads diff in modal progress
+     *
+     * @return null when diff can not be computed locally, for example when branch can not be fetched
+     */
+    @Nullable
+    public DiffInfo collectDiffInfo(@NotNull final BranchInfo from, @NotNull final BranchInfo branch) {
+        try {
+            return GitLabUtil
+                    .computeValueInModal(project, "Collecting diff data...", new ThrowableConvertor<ProgressIndicator, DiffInfo, IOException>() {
+                        @Override
+                        public DiffInfo convert(ProgressIndicator indicator) throws IOException {
+                            return GitLabUtil.runInterruptable(indicator, () -> getDiffInfo(from, branch, indicator));
+                        }
+                    });
+        } catch (IOException e) {
+            return null;
+        }
     }
 
     @Nullable
     public DiffInfo getDiffInfo(@NotNull final BranchInfo from, @NotNull final BranchInfo branch) throws IOException {
+        return getDiffInfo(from, branch, new EmptyProgressIndicator());
+    }
+
+    /**
+     * @param indicator cancelling the indicator stops git commands collecting the diff
+     */
+    @Nullable
+    public DiffInfo getDiffInfo(@NotNull final BranchInfo from, @NotNull final BranchInfo branch, @NotNull ProgressIndicator indicator) throws IOException {
         if (branch.getName() == null) {
             return null;
         }
 
+        return awaitDiffInfo(launchLoadDiffInfo(from, branch, indicator));
+    }
+
+    /**
+     * Waits for diff started by {@link #launchLoadDiffInfo}
+     *
+     * @return null when loading failed for other reason than git error
+     */
+    @Nullable
+    public static DiffInfo awaitDiffInfo(@NotNull CompletableFuture<DiffInfo> diffInfo) throws IOException {
         try {
-            return launchLoadDiffInfo(from, branch).get();
+            return diffInfo.get();
         } catch (InterruptedException e) {
             throw new IOException(e);
+        } catch (CancellationException e) {
+            return null;
         } catch (ExecutionException e) {
             Throwable wrapEx = e.getCause();
             if (wrapEx.getCause() instanceof VcsException) {
@@ -93,55 +128,68 @@ public class GitLabDiffViewWorker {
     }
 
     public CompletableFuture<DiffInfo> launchLoadDiffInfo(@NotNull final BranchInfo from, @NotNull final BranchInfo branch) {
+        return launchLoadDiffInfo(from, branch, new EmptyProgressIndicator());
+    }
+
+    public CompletableFuture<DiffInfo> launchLoadDiffInfo(@NotNull final BranchInfo from, @NotNull final BranchInfo branch, @NotNull ProgressIndicator indicator) {
         if (branch.getName() == null) {
             return CompletableFuture.completedFuture(null);
         }
 
-        CompletableFuture<Boolean> fetchFuture = launchFetchRemote(branch);
+        CompletableFuture<Boolean> fetchFuture = launchFetchRemote(from, branch);
         return fetchFuture.thenApply(t -> {
             try {
-                return doLoadDiffInfo(from, branch);
+                return doLoadDiffInfo(from, branch, indicator);
             } catch (VcsException e) {
                 throw new RuntimeException(e);
             }
         });
     }
 
-    private CompletableFuture<Boolean> launchFetchRemote(@NotNull final BranchInfo branch) {
+    /**
+     * Fetches target branch, source branch too when diff is computed from its remote ref
+     */
+    private CompletableFuture<Boolean> launchFetchRemote(@NotNull final BranchInfo from, @NotNull final BranchInfo branch) {
         if (branch.getName() == null) {
             return CompletableFuture.completedFuture(false);
         }
 
-        return CompletableFuture.supplyAsync(() -> doFetchRemote(branch), PooledThreadExecutor.INSTANCE);
-    }
-
-    private boolean doFetchRemote(@NotNull BranchInfo branch) {
-        if (branch.getName() == null) {
-            return false;
-        }
-
-        GitFetchResult result =
-                new GitFetcher(project, new EmptyProgressIndicator(), false).fetch(gitRepository.getRoot(), branch.getRemoteName(), null);
-        if (!result.isSuccess()) {
-            GitFetcher.displayFetchResult(project, result, null, result.getErrors());
-            return false;
-        }
-        return true;
+        List<BranchInfo> branches = from.isRemoteOnly() ? Arrays.asList(branch, from) : Collections.singletonList(branch);
+        return GitFetchCoordinator.getInstance(project).fetch(gitRepository, branches);
     }
 
+    /**
+     * Diff of the same pair of commits is taken from cache
+     * Otherwise commits of both sides and the diff are independent git calls, they run concurrently on pooled threads,
+     * failure of one call or cancelled indicator stops the others.
+     */
     @NotNull
-    private DiffInfo doLoadDiffInfo(@NotNull final BranchInfo from, @NotNull final BranchInfo to) throws VcsException {
+    private DiffInfo doLoadDiffInfo(@NotNull final BranchInfo from, @NotNull final BranchInfo to, @NotNull ProgressIndicator indicator) throws VcsException {
         String currentBranch = from.getFullName();
         String targetBranch = to.getFullRemoteName();
+        VirtualFile root = gitRepository.getRoot();
+
+        String sourceHash = GitRevisionNumber.resolve(project, root, currentBranch).asString();
+        String targetHash = GitRevisionNumber.resolve(project, root, targetBranch).asString();
+        DiffInfoCache cache = DiffInfoCache.getInstance(project);
+        DiffInfo cached = cache.get(root.getPath(), sourceHash, targetHash);
+        if (cached != null) {
+            return new DiffInfo(cached.getInfo(), currentBranch, targetBranch);
+        }
+
+        ConcurrentGitCalls calls = new ConcurrentGitCalls();
+        CompletableFuture<List<GitCommit>> commits1 = calls.submit(() -> GitHistoryUtils.history(project, root, sourceHash + ".." + targetHash));
+        CompletableFuture<List<GitCommit>> commits2 = calls.submit(() -> GitHistoryUtils.history(project, root, targetHash + ".." + sourceHash));
+        CompletableFuture<Collection<Change>> diff = calls.submit(() -> GitChangeUtils.getDiff(project, root, targetHash, sourceHash, null));
+        calls.await(indicator::isCanceled);
 
-        List<GitCommit> commits1 = GitHistoryUtils.history(project, gitRepository.getRoot(), ".." + targetBranch);
-        List<GitCommit> commits2 = GitHistoryUtils.history(project, gitRepository.getRoot(), targetBranch + "..");
-        Collection<Change> diff = GitChangeUtils.getDiff(project, gitRepository.getRoot(), targetBranch, currentBranch, null);
         GitCommitCompareInfo info = new GitCommitCompareInfo(GitCommitCompareInfo.InfoType.BRANCH_TO_HEAD);
-        info.put(gitRepository, diff);
-        info.put(gitRepository, Couple.of(commits1, commits2));
+        info.put(gitRepository, diff.join());
+        info.put(gitRepository, Couple.of(commits1.join(), commits2.join()));
 
-        return new DiffInfo(info, currentBranch, targetBranch);
+        DiffInfo diffInfo = new DiffInfo(info, currentBranch, targetBranch);
+        cache.put(root.getPath(), sourceHash, targetHash, diffInfo, commits1.join().size() + commits2.join().size() + diff.join().size());
+        return diffInfo;
     }
 
 }
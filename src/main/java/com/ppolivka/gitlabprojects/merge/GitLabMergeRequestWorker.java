@@ -5,7 +5,6 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.ppolivka.gitlabprojects.configuration.ProjectState;
-import com.ppolivka.gitlabprojects.configuration.SettingsState;
 import com.ppolivka.gitlabprojects.exception.MergeRequestException;
 import com.ppolivka.gitlabprojects.merge.helper.GitLabProjectMatcher;
 import com.ppolivka.gitlabprojects.util.GitLabUtil;
@@ -64,7 +63,6 @@ public interface GitLabMergeRequestWorker {
 
   class Util {
 
-    private static SettingsState settingsState = SettingsState.getInstance();
     private static GitLabProjectMatcher projectMatcher = new GitLabProjectMatcher();
 
     public static void fillRequiredInfo(@NotNull final GitLabMergeRequestWorker mergeRequestWorker, @NotNull final Project project, @Nullable final VirtualFile file) throws MergeRequestException {
@@ -95,11 +93,8 @@ public interface GitLabMergeRequestWorker {
       mergeRequestWorker.setRemoteUrl(remote.getSecond());
 
       try {
-        Integer projectId;
         Optional<GitlabProject> gitlabProject = projectMatcher.resolveProject(projectState, remote.getFirst(), gitRepository);
-        projectId = gitlabProject.orElseThrow(() -> new RuntimeException("No project found")).getId();
-
-        mergeRequestWorker.setGitlabProject(settingsState.api(gitRepository).getProject(projectId));
+        mergeRequestWorker.setGitlabProject(gitlabProject.orElseThrow(() -> new RuntimeException("No project found")));
       } catch (Exception e) {
         showErrorDialog(project, "Cannot find this project in GitLab Remote", CANNOT_CREATE_MERGE_REQUEST);
         throw new MergeRequestException(e);
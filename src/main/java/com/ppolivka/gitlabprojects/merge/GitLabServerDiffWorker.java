@@ -0,0 +1,108 @@
+package com.ppolivka.gitlabprojects.merge;
+
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vcs.AbstractVcsHelper;
+import com.intellij.openapi.vcs.changes.Change;
+import com.intellij.openapi.vcs.changes.ContentRevision;
+import com.intellij.openapi.vcs.versionBrowser.CommittedChangeListImpl;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.ThrowableConvertor;
+import com.intellij.vcsUtil.VcsUtil;
+import com.ppolivka.gitlabprojects.api.ApiFacade;
+import com.ppolivka.gitlabprojects.api.dto.MergeRequestChangesDto;
+import com.ppolivka.gitlabprojects.util.GitLabUtil;
+import org.gitlab.api.models.GitlabCommitComparison;
+import org.gitlab.api.models.GitlabCommitDiff;
+import org.gitlab.api.models.GitlabMergeRequest;
+import org.gitlab.api.models.GitlabProject;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Worker class that shows merge request diff computed by GitLab server
+ * No fetch or local history is needed, so it works for branches that exist only on the server.
+ * Only list of changed files is loaded up front, file contents are downloaded when the file is opened.
+ */
+public class GitLabServerDiffWorker {
+
+    private final Project project;
+    private final VirtualFile root;
+    private final ApiFacade api;
+    private final GitlabProject gitlabProject;
+
+    public GitLabServerDiffWorker(@NotNull Project project, @NotNull VirtualFile root, @NotNull ApiFacade api, @NotNull GitlabProject gitlabProject) {
+        this.project = project;
+        this.root = root;
+        this.api = api;
+        this.gitlabProject = gitlabProject;
+    }
+
+    /**
+     * @return false when changes could not be loaded from server
+     */
+    public boolean showDiffDialog(@NotNull GitlabMergeRequest mergeRequest) {
+        Collection<Change> changes;
+        try {
+            changes = GitLabUtil.computeValueInModal(project, "Loading changes from GitLab...", new ThrowableConvertor<ProgressIndicator, Collection<Change>, IOException>() {
+                @Override
+                public Collection<Change> convert(ProgressIndicator indicator) throws IOException {
+                    return GitLabUtil.runInterruptable(indicator, () -> loadChanges(mergeRequest));
+                }
+            });
+        } catch (IOException e) {
+            return false;
+        }
+        if (changes == null) {
+            return false;
+        }
+
+        String author = mergeRequest.getAuthor() != null ? mergeRequest.getAuthor().getName() : "";
+        CommittedChangeListImpl changeList = new CommittedChangeListImpl(mergeRequest.getTitle(), mergeRequest.getDescription(), author,
+                mergeRequest.getIid(), mergeRequest.getCreatedAt(), changes);
+        AbstractVcsHelper.getInstance(project).showChangesListBrowser(changeList, "Merge Request !" + mergeRequest.getIid());
+        return true;
+    }
+
+    /**
+     * Uses diff refs of merge request, on servers that do not send them compares branches instead
+     * Branch comparison starts at merge base, same as merge request diff. When merge base cannot be resolved,
+     * target branch is compared directly, so content of before side still matches the listed diffs.
+     */
+    @NotNull
+    Collection<Change> loadChanges(@NotNull GitlabMergeRequest mergeRequest) throws IOException {
+        MergeRequestChangesDto mergeRequestChanges = api.getMergeRequestChanges(gitlabProject, mergeRequest);
+        MergeRequestChangesDto.DiffRefs diffRefs = mergeRequestChanges.getDiffRefs();
+        if (diffRefs != null && diffRefs.getBaseSha() != null && diffRefs.getHeadSha() != null) {
+            return toChanges(mergeRequestChanges.getChanges(), diffRefs.getBaseSha(), diffRefs.getHeadSha());
+        }
+
+        String mergeBase = api.getMergeBase(gitlabProject, mergeRequest.getTargetBranch(), mergeRequest.getSourceBranch());
+        String base = mergeBase != null ? mergeBase : mergeRequest.getTargetBranch();
+        GitlabCommitComparison comparison = api.compare(gitlabProject, base, mergeRequest.getSourceBranch(), true);
+        String head = comparison.getCommit() != null ? comparison.getCommit().getId() : mergeRequest.getSourceBranch();
+        return toChanges(comparison.getDiffs(), base, head);
+    }
+
+    private Collection<Change> toChanges(@Nullable List<GitlabCommitDiff> diffs, String baseRef, String headRef) {
+        List<Change> changes = new ArrayList<>();
+        if (diffs == null) {
+            return changes;
+        }
+        for (GitlabCommitDiff diff : diffs) {
+            ContentRevision before = diff.getNewFile() ? null : revision(diff.getOldPath(), baseRef);
+            ContentRevision after = diff.getDeletedFile() ? null : revision(diff.getNewPath(), headRef);
+            changes.add(new Change(before, after));
+        }
+        return changes;
+    }
+
+    private ContentRevision revision(String path, String ref) {
+        return ServerContentRevision.create(project, api, gitlabProject, path, ref, VcsUtil.getFilePath(root.getPath() + "/" + path, false));
+    }
+}
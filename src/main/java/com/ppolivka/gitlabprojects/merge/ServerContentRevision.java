@@ -0,0 +1,90 @@
+package com.ppolivka.gitlabprojects.merge;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vcs.FilePath;
+import com.intellij.openapi.vcs.VcsException;
+import com.intellij.openapi.vcs.changes.BinaryContentRevision;
+import com.intellij.openapi.vcs.changes.ContentRevision;
+import com.intellij.openapi.vcs.history.VcsRevisionNumber;
+import com.ppolivka.gitlabprojects.api.ApiFacade;
+import git4idea.GitRevisionNumber;
+import org.gitlab.api.models.GitlabProject;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+
+/**
+ * File revision stored on GitLab server
+ * Content is downloaded first time it is asked for, that is when the file is opened in diff viewer.
+ * Text is decoded with the charset configured for the file, binary file types are passed to diff viewer as bytes.
+ */
+class ServerContentRevision implements ContentRevision {
+
+    private final Project project;
+    private final ApiFacade api;
+    private final GitlabProject gitlabProject;
+    private final String path;
+    private final String ref;
+    private final FilePath file;
+
+    private volatile byte[] bytes;
+
+    private ServerContentRevision(Project project, ApiFacade api, GitlabProject gitlabProject, String path, String ref, FilePath file) {
+        this.project = project;
+        this.api = api;
+        this.gitlabProject = gitlabProject;
+        this.path = path;
+        this.ref = ref;
+        this.file = file;
+    }
+
+    static ServerContentRevision create(Project project, ApiFacade api, GitlabProject gitlabProject, String path, String ref, FilePath file) {
+        if (file.getFileType().isBinary()) {
+            return new Binary(project, api, gitlabProject, path, ref, file);
+        }
+        return new ServerContentRevision(project, api, gitlabProject, path, ref, file);
+    }
+
+    @Nullable
+    @Override
+    public String getContent() throws VcsException {
+        return new String(loadBytes(), file.getCharset(project));
+    }
+
+    byte[] loadBytes() throws VcsException {
+        if (bytes == null) {
+            try {
+                bytes = api.getRawFileContent(gitlabProject, ref, path);
+            } catch (IOException e) {
+                throw new VcsException("Cannot load " + path + " at " + ref + " from GitLab", e);
+            }
+        }
+        return bytes;
+    }
+
+    @NotNull
+    @Override
+    public FilePath getFile() {
+        return file;
+    }
+
+    @NotNull
+    @Override
+    public VcsRevisionNumber getRevisionNumber() {
+        return new GitRevisionNumber(ref);
+    }
+
+    private static class Binary extends ServerContentRevision implements BinaryContentRevision {
+
+        private Binary(Project project, ApiFacade api, GitlabProject gitlabProject, String path, String ref, FilePath file) {
+            super(project, api, gitlabProject, path, ref, file);
+        }
+
+        @Nullable
+        @Override
+        public byte[] getBinaryContent() throws VcsException {
+            return loadBytes();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.ppolivka.gitlabprojects.merge.dashboard;
+
+import com.intellij.openapi.components.PersistentStateComponent;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.components.State;
+import com.intellij.openapi.components.Storage;
+import com.ppolivka.gitlabprojects.api.ApiFacade;
+import com.ppolivka.gitlabprojects.api.dto.MergeRequestDto;
+import com.ppolivka.gitlabprojects.configuration.SettingsState;
+import com.ppolivka.gitlabprojects.dto.GitlabServer;
+import org.gitlab.api.models.GitlabMergeRequest;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.ide.PooledThreadExecutor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Merge requests assigned to or created by current user on every configured server
+ * Each server is asked by global scoped queries instead of listing merge requests project by project,
+ * last result is kept in application config so dashboard can be shown before servers answer.
+ */
+@State(
+        name = "GitLabMergeRequestDashboard",
+        storages = {
+                @Storage("$APP_CONFIG$/gitlab-merge-request-dashboard.xml")
+        }
+)
+public class MergeRequestDashboard implements PersistentStateComponent<MergeRequestDashboard.DashboardState> {
+
+    private DashboardState dashboardState = new DashboardState();
+
+    public static MergeRequestDashboard getInstance() {
+        return ServiceManager.getService(MergeRequestDashboard.class);
+    }
+
+    @Nullable
+    @Override
+    public synchronized DashboardState getState() {
+        return dashboardState;
+    }
+
+    @Override
+    public synchronized void loadState(DashboardState state) {
+        dashboardState = state;
+    }
+
+    public static class DashboardState {
+        public Map<String, ServerMergeRequests> servers = new HashMap<>();
+    }
+
+    public static class ServerMergeRequests {
+        public long lastSync;
+        public List<MergeRequestDto> mergeRequests = new ArrayList<>();
+    }
+
+    @NotNull
+    public synchronized List<MergeRequestDto> getCachedMergeRequests(@NotNull GitlabServer server) {
+        ServerMergeRequests serverMergeRequests = servers().get(server.getApiUrl());
+        if (serverMergeRequests == null) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(serverMergeRequests.mergeRequests);
+    }
+
+    /**
+     * Loads merge requests of the server on pooled threads and stores them into cache
+     * Both scopes are requested at the same time, future fails with {@link UncheckedIOException} when any of them fails.
+     */
+    @NotNull
+    public CompletableFuture<List<MergeRequestDto>> refresh(@NotNull GitlabServer server) {
+        ApiFacade api = SettingsState.getInstance().api(server);
+        CompletableFuture<List<GitlabMergeRequest>> assigned = CompletableFuture.supplyAsync(
+                () -> myMergeRequests(api, ApiFacade.SCOPE_ASSIGNED_TO_ME), PooledThreadExecutor.INSTANCE);
+        CompletableFuture<List<GitlabMergeRequest>> created = CompletableFuture.supplyAsync(
+                () -> myMergeRequests(api, ApiFacade.SCOPE_CREATED_BY_ME), PooledThreadExecutor.INSTANCE);
+        return assigned.thenCombine(created, (assignedToMe, createdByMe) -> {
+            List<MergeRequestDto> mergeRequests = merge(server.getApiUrl(), assignedToMe, createdByMe);
+            store(server, mergeRequests);
+            return mergeRequests;
+        });
+    }
+
+    private static List<GitlabMergeRequest> myMergeRequests(ApiFacade api, String scope) {
+        try {
+            return api.getMyMergeRequests(scope);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private synchronized void store(GitlabServer server, List<MergeRequestDto> mergeRequests) {
+        ServerMergeRequests serverMergeRequests = new ServerMergeRequests();
+        serverMergeRequests.lastSync = System.currentTimeMillis();
+        serverMergeRequests.mergeRequests = new ArrayList<>(mergeRequests);
+        servers().put(server.getApiUrl(), serverMergeRequests);
+    }
+
+    private Map<String, ServerMergeRequests> servers() {
+        if (dashboardState.servers == null) {
+            dashboardState.servers = new HashMap<>();
+        }
+        return dashboardState.servers;
+    }
+
+    /**
+     * Merge request returned by both scopes is listed once with both roles, most recently updated first
+     */
+    static List<MergeRequestDto> merge(String serverUrl, Collection<GitlabMergeRequest> assignedToMe, Collection<GitlabMergeRequest> createdByMe) {
+        Map<Integer, MergeRequestDto> mergeRequests = new LinkedHashMap<>();
+        for (GitlabMergeRequest mergeRequest : assignedToMe) {
+            mergeRequests.computeIfAbsent(mergeRequest.getId(), id -> toDto(serverUrl, mergeRequest)).setAssignedToMe(true);
+        }
+        for (GitlabMergeRequest mergeRequest : createdByMe) {
+            mergeRequests.computeIfAbsent(mergeRequest.getId(), id -> toDto(serverUrl, mergeRequest)).setCreatedByMe(true);
+        }
+        List<MergeRequestDto> result = new ArrayList<>(mergeRequests.values());
+        result.sort(Comparator.comparingLong(MergeRequestDto::getUpdatedAt).reversed());
+        return result;
+    }
+
+    static MergeRequestDto toDto(String serverUrl, GitlabMergeRequest mergeRequest) {
+        MergeRequestDto mergeRequestDto = new MergeRequestDto();
+        mergeRequestDto.setServerUrl(serverUrl);
+        mergeRequestDto.setId(mergeRequest.getId());
+        mergeRequestDto.setIid(mergeRequest.getIid());
+        mergeRequestDto.setProjectId(mergeRequest.getProjectId());
+        mergeRequestDto.setProject(projectPath(mergeRequest));
+        mergeRequestDto.setTitle(mergeRequest.getTitle());
+        mergeRequestDto.setAuthor(mergeRequest.getAuthor() != null ? mergeRequest.getAuthor().getName() : "");
+        mergeRequestDto.setSourceBranch(mergeRequest.getSourceBranch());
+        mergeRequestDto.setTargetBranch(mergeRequest.getTargetBranch());
+        mergeRequestDto.setWebUrl(mergeRequest.getWebUrl());
+        mergeRequestDto.setUpdatedAt(mergeRequest.getUpdatedAt() != null ? mergeRequest.getUpdatedAt().getTime() : 0);
+        return mergeRequestDto;
+    }
+
+    /**
+     * Global listing does not contain project name, namespace path is taken from web URL of the merge request
+     */
+    static String projectPath(GitlabMergeRequest mergeRequest) {
+        String webUrl = mergeRequest.getWebUrl();
+        if (webUrl != null) {
+            try {
+                String path = URI.create(webUrl).getPath();
+                int end = path.indexOf("/-/merge_requests/");
+                if (end < 0) {
+                    end = path.lastIndexOf("/merge_requests/");
+                }
+                if (end > 0) {
+                    return path.substring(1, end);
+                }
+            } catch (IllegalArgumentException ignored) {
+                // malformed URL, project id is used instead
+            }
+        }
+        return "#" + mergeRequest.getProjectId();
+    }
+}
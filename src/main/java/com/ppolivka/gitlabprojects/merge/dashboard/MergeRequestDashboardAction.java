@@ -0,0 +1,24 @@
+package com.ppolivka.gitlabprojects.merge.dashboard;
+
+import com.intellij.icons.AllIcons;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.ppolivka.gitlabprojects.common.NoGitLabApiAction;
+import git4idea.DialogManager;
+
+import java.util.ArrayList;
+
+/**
+ * Action showing merge requests of current user across all configured servers
+ */
+public class MergeRequestDashboardAction extends NoGitLabApiAction {
+
+    public MergeRequestDashboardAction() {
+        super("_My Merge Requests...", "Merge requests assigned to or created by me on all GitLab servers", AllIcons.Vcs.MergeSourcesTree);
+    }
+
+    @Override
+    public void apiValidAction(AnActionEvent anActionEvent) {
+        MergeRequestDashboardDialog dashboardDialog = new MergeRequestDashboardDialog(project, new ArrayList<>(settingsState.getGitlabServers()));
+        DialogManager.show(dashboardDialog);
+    }
+}
@@ -0,0 +1,85 @@
+package com.ppolivka.gitlabprojects.merge.dashboard;
+
+import com.intellij.ide.BrowserUtil;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.DialogWrapper;
+import com.ppolivka.gitlabprojects.dto.GitlabServer;
+import com.ppolivka.gitlabprojects.util.GitLabUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Dialog listing merge requests of current user from all configured servers
+ * Cached merge requests are shown immediately, every server is then refreshed in background.
+ */
+public class MergeRequestDashboardDialog extends DialogWrapper {
+
+    private static final Logger LOG = Logger.getInstance(MergeRequestDashboardDialog.class);
+
+    private JPanel mainView;
+    private JTable listOfRequests;
+    private MergeRequestDashboardTableModel mergeRequestModel;
+
+    private final Collection<GitlabServer> servers;
+    private final List<String> failedServers = new ArrayList<>();
+
+    public MergeRequestDashboardDialog(@Nullable Project project, @NotNull Collection<GitlabServer> servers) {
+        super(project);
+        this.servers = servers;
+        init();
+    }
+
+    @Override
+    protected void init() {
+        super.init();
+        setTitle("My Merge Requests");
+
+        setOKActionEnabled(false);
+        setOKButtonText("Open in Browser");
+        setHorizontalStretch(2);
+
+        mergeRequestModel = new MergeRequestDashboardTableModel();
+        listOfRequests.setModel(mergeRequestModel);
+        listOfRequests.getColumnModel().getColumn(1).setPreferredWidth(200);
+        listOfRequests.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        listOfRequests.getSelectionModel().addListSelectionListener(event -> setOKActionEnabled(listOfRequests.getSelectedRow() >= 0));
+
+        MergeRequestDashboard dashboard = MergeRequestDashboard.getInstance();
+        for (GitlabServer server : servers) {
+            mergeRequestModel.setMergeRequests(server.getApiUrl(), dashboard.getCachedMergeRequests(server));
+        }
+        for (GitlabServer server : servers) {
+            GitLabUtil.whenLoaded(getDisposable(), dashboard.refresh(server),
+                    mergeRequests -> mergeRequestModel.setMergeRequests(server.getApiUrl(), mergeRequests),
+                    error -> {
+                        LOG.warn("Cannot load merge requests of " + server.getApiUrl(), error);
+                        failedServers.add(server.getApiUrl());
+                        setErrorText("Cannot refresh merge requests of " + String.join(", ", failedServers));
+                    });
+        }
+    }
+
+    @Override
+    protected void doOKAction() {
+        if (listOfRequests.getSelectedRow() < 0) {
+            return;
+        }
+        String webUrl = mergeRequestModel.getMergeRequest(listOfRequests.convertRowIndexToModel(listOfRequests.getSelectedRow())).getWebUrl();
+        if (webUrl != null) {
+            BrowserUtil.browse(webUrl);
+        }
+        super.doOKAction();
+    }
+
+    @Nullable
+    @Override
+    protected JComponent createCenterPanel() {
+        return mainView;
+    }
+}
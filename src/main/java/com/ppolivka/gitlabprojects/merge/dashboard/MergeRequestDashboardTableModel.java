@@ -0,0 +1,73 @@
+package com.ppolivka.gitlabprojects.merge.dashboard;
+
+import com.ppolivka.gitlabprojects.api.dto.MergeRequestDto;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.*;
+
+/**
+ * Read only table of dashboard merge requests, rows of each server are replaced when server is refreshed
+ */
+class MergeRequestDashboardTableModel extends AbstractTableModel {
+
+    private static final String[] COLUMNS = {"Project", "Merge request", "Author", "Source", "Target", "Role"};
+
+    private final Map<String, List<MergeRequestDto>> mergeRequestsByServer = new LinkedHashMap<>();
+    private final List<MergeRequestDto> rows = new ArrayList<>();
+
+    /**
+     * Must be called on event dispatch thread
+     */
+    void setMergeRequests(String serverUrl, List<MergeRequestDto> mergeRequests) {
+        mergeRequestsByServer.put(serverUrl, new ArrayList<>(mergeRequests));
+        rows.clear();
+        mergeRequestsByServer.values().forEach(rows::addAll);
+        rows.sort(Comparator.comparingLong(MergeRequestDto::getUpdatedAt).reversed());
+        fireTableDataChanged();
+    }
+
+    MergeRequestDto getMergeRequest(int row) {
+        return rows.get(row);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        MergeRequestDto mergeRequest = rows.get(row);
+        switch (column) {
+            case 0:
+                return mergeRequest.getProject();
+            case 1:
+                return "!" + mergeRequest.getIid() + " " + mergeRequest.getTitle();
+            case 2:
+                return mergeRequest.getAuthor();
+            case 3:
+                return mergeRequest.getSourceBranch();
+            case 4:
+                return mergeRequest.getTargetBranch();
+            default:
+                return role(mergeRequest);
+        }
+    }
+
+    private static String role(MergeRequestDto mergeRequest) {
+        if (mergeRequest.isAssignedToMe() && mergeRequest.isCreatedByMe()) {
+            return "Author, Assignee";
+        }
+        return mergeRequest.isAssignedToMe() ? "Assignee" : "Author";
+    }
+}
@@ -0,0 +1,133 @@
+package com.ppolivka.gitlabprojects.merge.helper;
+
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.util.ThrowableComputable;
+import com.intellij.openapi.vcs.VcsException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.ide.PooledThreadExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Independent git calls running concurrently on pooled threads
+ * First failed call or cancelled caller cancels the calls that are still running.
+ */
+public class ConcurrentGitCalls {
+
+    private static final long CANCEL_CHECK_INTERVAL = 100;
+
+    /**
+     * Runs single git call, git commands stop when runner is cancelled
+     */
+    interface GitRunner {
+        <T> T run(@NotNull ThrowableComputable<T, VcsException> call) throws VcsException;
+
+        void cancel();
+    }
+
+    private final Executor executor;
+    private final GitRunner runner;
+    private final List<CompletableFuture<?>> calls = new ArrayList<>();
+
+    public ConcurrentGitCalls() {
+        this(PooledThreadExecutor.INSTANCE, new UnderProgressRunner());
+    }
+
+    ConcurrentGitCalls(Executor executor, GitRunner runner) {
+        this.executor = executor;
+        this.runner = runner;
+    }
+
+    @NotNull
+    public <T> CompletableFuture<T> submit(@NotNull ThrowableComputable<T, VcsException> call) {
+        CompletableFuture<T> future = CompletableFuture.supplyAsync(() -> {
+            try {
+                return runner.run(call);
+            } catch (VcsException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+        calls.add(future);
+        return future;
+    }
+
+    /**
+     * Waits until all submitted calls finish
+     *
+     * @param canceled checked periodically, calls are cancelled and {@link ProcessCanceledException} thrown once it is true
+     * @throws VcsException first failure of any call
+     */
+    public void await(@NotNull BooleanSupplier canceled) throws VcsException {
+        CompletableFuture<Void> all = CompletableFuture.allOf(calls.toArray(new CompletableFuture[0]));
+        for (CompletableFuture<?> call : calls) {
+            call.whenComplete((result, error) -> {
+                if (error != null) {
+                    all.completeExceptionally(error);
+                }
+            });
+        }
+        try {
+            while (true) {
+                try {
+                    all.get(CANCEL_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+                    return;
+                } catch (TimeoutException e) {
+                    if (canceled.getAsBoolean()) {
+                        runner.cancel();
+                        throw new ProcessCanceledException();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            runner.cancel();
+            throw new ProcessCanceledException();
+        } catch (ExecutionException e) {
+            runner.cancel();
+            Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof VcsException) {
+                throw (VcsException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new VcsException(cause);
+        }
+    }
+
+    /**
+     * Runs calls under shared progress indicator, git handlers stop once it is cancelled
+     */
+    private static class UnderProgressRunner implements GitRunner {
+
+        private final ProgressIndicator indicator = new EmptyProgressIndicator();
+
+        @Override
+        public <T> T run(@NotNull ThrowableComputable<T, VcsException> call) throws VcsException {
+            try {
+                return ProgressManager.getInstance().runProcess(() -> {
+                    try {
+                        return call.compute();
+                    } catch (VcsException e) {
+                        throw new CompletionException(e);
+                    }
+                }, indicator);
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof VcsException) {
+                    throw (VcsException) e.getCause();
+                }
+                throw e;
+            }
+        }
+
+        @Override
+        public void cancel() {
+            indicator.cancel();
+        }
+    }
+}
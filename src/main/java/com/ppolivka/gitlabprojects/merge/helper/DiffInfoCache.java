@@ -0,0 +1,79 @@
+package com.ppolivka.gitlabprojects.merge.helper;
+
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import com.ppolivka.gitlabprojects.merge.info.DiffInfo;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Computed branch comparisons keyed by repository root and commit hashes of both sides
+ * Same pair of commits always gives the same commits and changes, so entries never expire.
+ * Least recently used entries are evicted when total size (commits and changes held) exceeds the limit.
+ */
+public class DiffInfoCache {
+
+    static final int MAX_SIZE = 50_000;
+
+    private final int maxSize;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private int size;
+
+    public DiffInfoCache() {
+        this(MAX_SIZE);
+    }
+
+    DiffInfoCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public static DiffInfoCache getInstance(@NotNull Project project) {
+        return ServiceManager.getService(project, DiffInfoCache.class);
+    }
+
+    public synchronized DiffInfo get(String rootPath, String sourceHash, String targetHash) {
+        Entry entry = entries.get(key(rootPath, sourceHash, targetHash));
+        return entry != null ? entry.diffInfo : null;
+    }
+
+    /**
+     * @param size number of commits and changes in the diff info
+     */
+    public synchronized void put(String rootPath, String sourceHash, String targetHash, DiffInfo diffInfo, int size) {
+        if (size > maxSize) {
+            return;
+        }
+        Entry previous = entries.put(key(rootPath, sourceHash, targetHash), new Entry(diffInfo, size));
+        if (previous != null) {
+            this.size -= previous.size;
+        }
+        this.size += size;
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (this.size > maxSize) {
+            this.size -= eldest.next().size;
+            eldest.remove();
+        }
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    private static String key(String rootPath, String sourceHash, String targetHash) {
+        return rootPath + "\n" + sourceHash + "\n" + targetHash;
+    }
+
+    private static class Entry {
+        private final DiffInfo diffInfo;
+        private final int size;
+
+        Entry(DiffInfo diffInfo, int size) {
+            this.diffInfo = diffInfo;
+            this.size = size;
+        }
+    }
+}
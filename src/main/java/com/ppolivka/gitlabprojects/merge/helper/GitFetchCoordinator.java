@@ -0,0 +1,118 @@
+package com.ppolivka.gitlabprojects.merge.helper;
+
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.project.Project;
+import com.ppolivka.gitlabprojects.configuration.SettingsState;
+import com.ppolivka.gitlabprojects.merge.info.BranchInfo;
+import git4idea.repo.GitRepository;
+import git4idea.update.GitFetchResult;
+import git4idea.update.GitFetcher;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.ide.PooledThreadExecutor;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Fetches of remote branches shared by diff views and merge request checks
+ * Callers asking for the same branch of the same remote and repository while fetch is running get that fetch,
+ * successful fetch is reused until freshness window from settings passes.
+ */
+public class GitFetchCoordinator {
+
+    private final Project project;
+    private final Executor executor;
+    private final LongSupplier clock;
+    private final Map<String, Fetch> fetches = new HashMap<>();
+
+    public GitFetchCoordinator(@NotNull Project project) {
+        this(project, PooledThreadExecutor.INSTANCE, System::currentTimeMillis);
+    }
+
+    GitFetchCoordinator(Project project, Executor executor, LongSupplier clock) {
+        this.project = project;
+        this.executor = executor;
+        this.clock = clock;
+    }
+
+    public static GitFetchCoordinator getInstance(@NotNull Project project) {
+        return ServiceManager.getService(project, GitFetchCoordinator.class);
+    }
+
+    /**
+     * Fetches only refs/heads/name of every branch from its remote, each branch is shared separately
+     *
+     * @return future completed with true when all branches were fetched successfully
+     */
+    public CompletableFuture<Boolean> fetch(@NotNull GitRepository repository, @NotNull List<BranchInfo> branches) {
+        return shareAll(repository.getRoot().getPath(), freshnessWindow(), branches,
+                branch -> doFetch(repository, branch.getRemoteName(), branch.getName()));
+    }
+
+    CompletableFuture<Boolean> shareAll(String rootPath, long freshnessWindow, List<BranchInfo> branches, Function<BranchInfo, Boolean> fetchAction) {
+        CompletableFuture<Boolean> all = CompletableFuture.completedFuture(true);
+        for (BranchInfo branch : branches) {
+            String key = rootPath + "\n" + branch.getRemoteName() + "\n" + branch.getName();
+            all = all.thenCombine(share(key, freshnessWindow, () -> fetchAction.apply(branch)), Boolean::logicalAnd);
+        }
+        return all;
+    }
+
+    synchronized CompletableFuture<Boolean> share(String key, long freshnessWindow, Supplier<Boolean> fetchAction) {
+        Fetch fetch = fetches.get(key);
+        if (fetch != null && (!fetch.result.isDone() || isFresh(fetch, freshnessWindow))) {
+            return fetch.result;
+        }
+        Fetch started = new Fetch(clock.getAsLong(), CompletableFuture.supplyAsync(fetchAction, executor));
+        fetches.put(key, started);
+        started.result.whenComplete((success, error) -> {
+            synchronized (this) {
+                if (fetches.get(key) == started) {
+                    if (error != null || !Boolean.TRUE.equals(success)) {
+                        fetches.remove(key);
+                    } else {
+                        started.finishedAt = clock.getAsLong();
+                    }
+                }
+            }
+        });
+        return started.result;
+    }
+
+    private boolean isFresh(Fetch fetch, long freshnessWindow) {
+        return !fetch.result.isCompletedExceptionally() && Boolean.TRUE.equals(fetch.result.getNow(false))
+                && clock.getAsLong() - fetch.finishedAt < freshnessWindow;
+    }
+
+    private long freshnessWindow() {
+        return TimeUnit.SECONDS.toMillis(SettingsState.getInstance().getFetchFreshnessSeconds());
+    }
+
+    private boolean doFetch(GitRepository repository, String remoteName, String branchName) {
+        GitFetchResult result =
+                new GitFetcher(project, new EmptyProgressIndicator(), false).fetch(repository.getRoot(), remoteName, branchName);
+        if (!result.isSuccess()) {
+            GitFetcher.displayFetchResult(project, result, null, result.getErrors());
+            return false;
+        }
+        return true;
+    }
+
+    private static class Fetch {
+        private final CompletableFuture<Boolean> result;
+        private volatile long finishedAt;
+
+        Fetch(long startedAt, CompletableFuture<Boolean> result) {
+            this.finishedAt = startedAt;
+            this.result = result;
+        }
+    }
+}
@@ -1,54 +1,121 @@
 package com.ppolivka.gitlabprojects.merge.helper;
 
+import com.ppolivka.gitlabprojects.api.ApiFacade;
 import com.ppolivka.gitlabprojects.configuration.ProjectState;
 import com.ppolivka.gitlabprojects.configuration.SettingsState;
+import com.ppolivka.gitlabprojects.dto.GitlabServer;
 import com.ppolivka.gitlabprojects.exception.GitLabException;
 import git4idea.repo.GitRemote;
 import git4idea.repo.GitRepository;
-import org.apache.commons.lang.StringUtils;
+import org.gitlab.api.GitlabAPIException;
 import org.gitlab.api.models.GitlabProject;
+import org.jetbrains.ide.PooledThreadExecutor;
 
-import java.util.Collection;
-import java.util.Optional;
+import java.net.HttpURLConnection;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 public class GitLabProjectMatcher {
 
     private static SettingsState settingsState = SettingsState.getInstance();
 
+    /** Indexes of full project listing, per server facade, rebuilt when remote is not found in them */
+    private final Map<ApiFacade, ProjectUrlIndex> indexes = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final Set<String> verificationsInProgress = ConcurrentHashMap.newKeySet();
+
     public Optional<GitlabProject> resolveProject(ProjectState projectState, GitRemote remote, GitRepository repository) {
         String remoteProjectName = remote.getName();
         String remoteUrl = remote.getFirstUrl();
+        GitlabServer server = settingsState.currentGitlabServer(repository);
+        String serverUrl = server != null ? server.getApiUrl() : null;
+
+        ProjectState.RemoteProject cached = projectState.getRemoteProject(remoteUrl);
+        if (cached != null && Objects.equals(serverUrl, cached.serverUrl)) {
+            if (!cached.isFresh(TimeUnit.HOURS.toMillis(settingsState.getRemoteProjectTtlHours()))) {
+                verifyInBackground(projectState, remoteUrl, repository, cached);
+            }
+            return Optional.of(cached.toGitlabProject());
+        }
 
-        if(projectState.getProjectId(remoteUrl) == null) {
+        try {
+            ApiFacade api = settingsState.api(repository);
+            Optional<GitlabProject> match = findByPath(api, remoteUrl);
+            if (!match.isPresent()) {
+                match = findInIndex(api, remoteUrl, remoteProjectName);
+            }
+            match.ifPresent(gitlabProject -> projectState.setRemoteProject(remoteUrl, repository, serverUrl, gitlabProject));
+            return match;
+        } catch (Throwable throwable) {
+            throw new GitLabException("Cannot match project.", throwable);
+        }
+    }
+
+    /**
+     * Expired entry is still used, it is checked against server afterwards
+     * Project that does not exist anymore or was moved is dropped, so next call resolves remote again
+     */
+    private void verifyInBackground(ProjectState projectState, String remoteUrl, GitRepository repository, ProjectState.RemoteProject cached) {
+        if (!verificationsInProgress.add(remoteUrl)) {
+            return;
+        }
+        PooledThreadExecutor.INSTANCE.execute(() -> {
             try {
-                Collection<GitlabProject> projects = settingsState.api(repository).getProjects();
-                for (GitlabProject gitlabProject : projects) {
-                    if (gitlabProject.getName().toLowerCase().equals(remoteProjectName.toLowerCase()) || urlMatch(remoteUrl, gitlabProject.getSshUrl()) || urlMatch(remoteUrl, gitlabProject.getHttpUrl())) {
-                        Integer projectId = gitlabProject.getId();
-                        projectState.setProjectId(remoteUrl, projectId);
-                        return Optional.of(gitlabProject);
-                    }
+                GitlabProject gitlabProject = settingsState.api(repository).getProject(cached.projectId);
+                if (Objects.equals(cached.pathWithNamespace, gitlabProject.getPathWithNamespace())) {
+                    projectState.setRemoteProject(remoteUrl, repository, cached.serverUrl, gitlabProject);
+                } else {
+                    projectState.invalidateRemoteProject(remoteUrl);
                 }
-            } catch (Throwable throwable) {
-                throw new GitLabException("Cannot match project.", throwable);
+            } catch (GitlabAPIException e) {
+                if (e.getResponseCode() == HttpURLConnection.HTTP_NOT_FOUND || e.getResponseCode() == HttpURLConnection.HTTP_FORBIDDEN) {
+                    projectState.invalidateRemoteProject(remoteUrl);
+                }
+            } catch (Throwable e) {
+                // server not reachable, entry is kept and checked next time
+            } finally {
+                verificationsInProgress.remove(remoteUrl);
             }
-        } else {
-            try {
-                return Optional.of(settingsState.api(repository).getProject(projectState.getProjectId(remoteUrl)));
-            } catch (Exception e) {
-                projectState.setProjectId(remoteUrl, null);
+        });
+    }
+
+    /**
+     * Single request lookup by namespace/path parsed from remote URL
+     * Project is accepted only when one of its clone URLs points to the same place as remote,
+     * so remote of another host with the same path is not matched.
+     */
+    private Optional<GitlabProject> findByPath(ApiFacade api, String remoteUrl) {
+        String path = ProjectUrlIndex.projectPath(remoteUrl);
+        if (path == null) {
+            return Optional.empty();
+        }
+        try {
+            GitlabProject gitlabProject = api.getProject(path);
+            String remote = ProjectUrlIndex.normalize(remoteUrl);
+            if (gitlabProject != null && (Objects.equals(remote, ProjectUrlIndex.normalize(gitlabProject.getSshUrl())) || Objects.equals(remote, ProjectUrlIndex.normalize(gitlabProject.getHttpUrl())))) {
+                return Optional.of(gitlabProject);
             }
+        } catch (Exception e) {
+            // not found or GitLab installed under relative URL, full listing is used
         }
-
         return Optional.empty();
     }
 
-    private boolean urlMatch(String remoteUrl, String apiUrl) {
-        String formattedRemoteUrl = remoteUrl.trim();
-        String formattedApiUrl = apiUrl.trim();
-        formattedRemoteUrl = formattedRemoteUrl.replace("https://", "");
-        formattedRemoteUrl = formattedRemoteUrl.replace("http://", "");
-        return StringUtils.isNotBlank(formattedApiUrl) && StringUtils.isNotBlank(formattedRemoteUrl) && formattedApiUrl.toLowerCase().contains(formattedRemoteUrl.toLowerCase());
+    private Optional<GitlabProject> findInIndex(ApiFacade api, String remoteUrl, String remoteProjectName) throws Exception {
+        ProjectUrlIndex index = indexes.get(api);
+        if (index != null) {
+            Optional<GitlabProject> match = index.find(remoteUrl, remoteProjectName);
+            if (match.isPresent()) {
+                return match;
+            }
+        }
+        try (Stream<GitlabProject> projects = api.streamProjects()) {
+            index = new ProjectUrlIndex(projects);
+        }
+        indexes.put(api, index);
+        return index.find(remoteUrl, remoteProjectName);
     }
 
 }
@@ -0,0 +1,88 @@
+package com.ppolivka.gitlabprojects.merge.helper;
+
+import org.apache.commons.lang.StringUtils;
+import org.gitlab.api.models.GitlabProject;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Index of projects by normalized clone URL
+ * Remote URLs differing only in protocol, user, letter case or .git suffix point to the same entry
+ */
+class ProjectUrlIndex {
+
+    private final Map<String, GitlabProject> byUrl = new HashMap<>();
+    private final Map<String, GitlabProject> byName = new HashMap<>();
+
+    ProjectUrlIndex(Stream<GitlabProject> projects) {
+        projects.forEach(project -> {
+            put(project.getSshUrl(), project);
+            put(project.getHttpUrl(), project);
+            if (project.getName() != null) {
+                byName.putIfAbsent(project.getName().toLowerCase(), project);
+            }
+        });
+    }
+
+    private void put(String url, GitlabProject project) {
+        String key = normalize(url);
+        if (key != null) {
+            byUrl.putIfAbsent(key, project);
+        }
+    }
+
+    Optional<GitlabProject> find(String remoteUrl, String remoteName) {
+        String key = normalize(remoteUrl);
+        GitlabProject project = key != null ? byUrl.get(key) : null;
+        if (project == null && remoteName != null) {
+            project = byName.get(remoteName.toLowerCase());
+        }
+        return Optional.ofNullable(project);
+    }
+
+    /**
+     * Reduces clone URL to lower case host/path form, so https://user@host/a/b.git, http://host/a/b and
+     * ssh://git@host/a/b.git all end up as host/a/b, scp like git@host:a/b.git ends up the same way
+     *
+     * @return normalized URL or null for blank URL
+     */
+    static String normalize(String url) {
+        if (StringUtils.isBlank(url)) {
+            return null;
+        }
+        String normalized = url.trim().toLowerCase();
+        boolean scpLike = !normalized.contains("://");
+        if (!scpLike) {
+            normalized = normalized.substring(normalized.indexOf("://") + 3);
+        }
+        int pathStart = normalized.indexOf('/');
+        int userEnd = normalized.indexOf('@');
+        if (userEnd >= 0 && (pathStart < 0 || userEnd < pathStart)) {
+            normalized = normalized.substring(userEnd + 1);
+        }
+        if (scpLike) {
+            normalized = normalized.replaceFirst(":", "/");
+        }
+        normalized = StringUtils.removeEnd(normalized, "/");
+        normalized = StringUtils.removeEnd(normalized, ".git");
+        return normalized;
+    }
+
+    /**
+     * Extracts namespace/path of the project from remote URL
+     *
+     * @return path with namespace or null when URL has no namespace part
+     */
+    static String projectPath(String remoteUrl) {
+        String normalized = normalize(remoteUrl);
+        if (normalized == null) {
+            return null;
+        }
+        int hostEnd = normalized.indexOf('/');
+        String path = hostEnd < 0 ? "" : normalized.substring(hostEnd + 1);
+        return path.contains("/") ? path : null;
+    }
+}
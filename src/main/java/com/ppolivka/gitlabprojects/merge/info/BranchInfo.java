@@ -34,6 +34,10 @@ public class BranchInfo {
         return this.getRemoteName() + "/" + this.getName();
     }
 
+    public boolean isRemoteOnly() {
+        return remoteOnly;
+    }
+
     public String getName() {
         return name;
     }
@@ -1,12 +1,9 @@
 package com.ppolivka.gitlabprojects.merge.list;
 
-import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.DialogWrapper;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.util.containers.Convertor;
 import com.ppolivka.gitlabprojects.comment.CommentsDialog;
-import com.ppolivka.gitlabprojects.comment.GitLabCommentsListWorker;
 import com.ppolivka.gitlabprojects.configuration.SettingsState;
 import com.ppolivka.gitlabprojects.merge.info.BranchInfo;
 import com.ppolivka.gitlabprojects.util.GitLabUtil;
@@ -16,6 +13,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
+import java.util.concurrent.CompletableFuture;
 
 import static com.ppolivka.gitlabprojects.util.MessageUtil.showErrorDialog;
 
@@ -57,6 +55,7 @@ public class CodeReviewDialog extends DialogWrapper {
         this.project = project;
         this.mergeRequest = mergeRequest;
         this.mergeRequestWorker = mergeRequestWorker;
+        this.virtualFile = virtualFile;
         init();
     }
 
@@ -82,30 +81,31 @@ public class CodeReviewDialog extends DialogWrapper {
 
         diffButton.addActionListener(e -> {
             diffClicked = true;
-            mergeRequestWorker.getDiffViewWorker().showDiffDialog(sourceBranch, targetBranch);
+            mergeRequestWorker.showMergeRequestDiff(mergeRequest, sourceBranch, targetBranch);
         });
 
         commentsButton.addActionListener(e -> {
-            GitLabCommentsListWorker commentsListWorker = GitLabCommentsListWorker.create(project, mergeRequest, virtualFile);
-            CommentsDialog commentsDialog = new CommentsDialog(project, commentsListWorker, virtualFile);
+            CommentsDialog commentsDialog = new CommentsDialog(project, mergeRequest, virtualFile);
             commentsDialog.show();
         });
 
         assignMe.addActionListener(event -> {
-            GitLabUtil.computeValueInModal(project, "Changing assignee...", (Convertor<ProgressIndicator, Void>) o -> {
-                try {
-                    SettingsState settingsState = SettingsState.getInstance();
-                    GitlabUser currentUser = settingsState.api(mergeRequestWorker.getGitRepository()).getCurrentUser();
-                    settingsState.api(mergeRequestWorker.getGitRepository()).changeAssignee(
-                            mergeRequestWorker.getGitlabProject(),
-                            mergeRequest,
-                            currentUser
-                    );
-                    assigneeName.setText(currentUser.getName());
-                } catch (Exception e) {
-                    showErrorDialog(project, "Cannot change assignee of this merge request.", "Cannot Change Assignee");
-                }
-                return null;
+            assignMe.setEnabled(false);
+            CompletableFuture<GitlabUser> assignee = GitLabUtil.computeValueInBackground(getDisposable(), indicator -> {
+                GitlabUser currentUser = settingsState.api(mergeRequestWorker.getGitRepository()).getCurrentUser();
+                settingsState.api(mergeRequestWorker.getGitRepository()).changeAssignee(
+                        mergeRequestWorker.getGitlabProject(),
+                        mergeRequest,
+                        currentUser
+                );
+                return currentUser;
+            });
+            GitLabUtil.whenLoaded(getDisposable(), assignee, currentUser -> {
+                assigneeName.setText(currentUser.getName());
+                assignMe.setEnabled(true);
+            }, e -> {
+                showErrorDialog(project, "Cannot change assignee of this merge request.", "Cannot Change Assignee");
+                assignMe.setEnabled(true);
             });
         });
     }
@@ -19,8 +19,7 @@ public class GitLabMergeRequestListAction extends GitLabApiAction {
 
     @Override
     public void apiValidAction(AnActionEvent anActionEvent) {
-        GitLabMergeRequestListWorker mergeRequestListWorker = GitLabMergeRequestListWorker.create(project, file);
-        GitLabMergeRequestListDialog gitLabMergeRequestListDialog = new GitLabMergeRequestListDialog(project, mergeRequestListWorker, file);
+        GitLabMergeRequestListDialog gitLabMergeRequestListDialog = new GitLabMergeRequestListDialog(project, file);
         DialogManager.show(gitLabMergeRequestListDialog);
 
     }
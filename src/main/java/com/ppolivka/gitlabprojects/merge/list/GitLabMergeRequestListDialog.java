@@ -3,14 +3,20 @@ package com.ppolivka.gitlabprojects.merge.list;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.DialogWrapper;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.ppolivka.gitlabprojects.api.ApiFacade;
 import com.ppolivka.gitlabprojects.common.ReadOnlyTableModel;
+import com.ppolivka.gitlabprojects.util.GitLabUtil;
 import org.gitlab.api.models.GitlabMergeRequest;
-import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.ide.PooledThreadExecutor;
 
 import javax.swing.*;
-import javax.swing.table.TableModel;
-import java.util.List;
+import java.awt.*;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+
+import static com.ppolivka.gitlabprojects.util.MessageUtil.showErrorDialog;
 
 /**
  * Dialog that is listing all active merge request in git lab repo
@@ -20,22 +26,28 @@ import java.util.List;
  */
 public class GitLabMergeRequestListDialog extends DialogWrapper {
 
+    private static final int LOAD_AHEAD_ROWS = 5;
+
     private JPanel mainView;
     private JTable listOfRequests;
+    private MergeRequestTableModel mergeRequestModel;
+    private MergeRequestRefresher refresher;
 
     private Project project;
     private VirtualFile file;
 
-    final GitLabMergeRequestListWorker mergeRequestListWorker;
+    private GitLabMergeRequestListWorker mergeRequestListWorker;
 
-    public GitLabMergeRequestListDialog(@Nullable Project project, @NotNull GitLabMergeRequestListWorker mergeRequestListWorker, VirtualFile file) {
+    public GitLabMergeRequestListDialog(@Nullable Project project, VirtualFile file) {
         super(project);
         this.project = project;
-        this.mergeRequestListWorker = mergeRequestListWorker;
         this.file = file;
         init();
     }
 
+    /**
+     * Dialog is shown right away, merge requests are filled in once GitLab project is resolved
+     */
     @Override
     protected void init() {
         super.init();
@@ -45,21 +57,78 @@ public class GitLabMergeRequestListDialog extends DialogWrapper {
         setOKButtonText("Code Review");
         setHorizontalStretch(2);
 
-        List<GitlabMergeRequest> mergeRequests = mergeRequestListWorker.getMergeRequests();
-        listOfRequests.setModel(mergeRequestModel(mergeRequests));
+        listOfRequests.setModel(new ReadOnlyTableModel(new Object[][]{{"Loading..."}}, new Object[]{"Merge request"}));
+        listOfRequests.setEnabled(false);
+
+        CompletableFuture<GitLabMergeRequestListWorker> worker = GitLabUtil.computeValueInBackground(getDisposable(),
+                indicator -> GitLabMergeRequestListWorker.create(project, file));
+        GitLabUtil.whenLoaded(getDisposable(), worker, this::showMergeRequests, e -> {
+            showErrorDialog(project, "Cannot load merge requests from GitLab API", "Cannot Load Merge Requests");
+            close(CANCEL_EXIT_CODE);
+        });
+    }
+
+    private void showMergeRequests(@Nullable GitLabMergeRequestListWorker mergeRequestListWorker) {
+        if (mergeRequestListWorker == null) {
+            close(CANCEL_EXIT_CODE);
+            return;
+        }
+        this.mergeRequestListWorker = mergeRequestListWorker;
+
+        Iterator<GitlabMergeRequest> openMergeRequests;
+        try {
+            openMergeRequests = mergeRequestListWorker.openMergeRequests();
+        } catch (IOException e) {
+            showErrorDialog(project, "Cannot load merge requests from GitLab API", "Cannot Load Merge Requests");
+            close(CANCEL_EXIT_CODE);
+            return;
+        }
+        mergeRequestModel = new MergeRequestTableModel(openMergeRequests, ApiFacade.MERGE_REQUEST_PAGE_SIZE,
+                PooledThreadExecutor.INSTANCE, e -> showErrorDialog(project, "Cannot load merge requests from GitLab API", "Cannot Load Merge Requests"));
+        listOfRequests.setModel(mergeRequestModel);
+        listOfRequests.setEnabled(true);
         listOfRequests.getColumnModel().getColumn(0).setPreferredWidth(200);
-        listOfRequests.getColumnModel().getColumn(5).setWidth(0);
-        listOfRequests.getColumnModel().getColumn(5).setMinWidth(0);
-        listOfRequests.getColumnModel().getColumn(5).setMaxWidth(0);
         listOfRequests.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
 
         listOfRequests.getSelectionModel().addListSelectionListener(event -> setOKActionEnabled(true));
+
+        JViewport viewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, listOfRequests);
+        viewport.addChangeListener(event -> loadMoreWhenScrolledToEnd(viewport));
+        mergeRequestModel.addTableModelListener(event -> SwingUtilities.invokeLater(() -> loadMoreWhenScrolledToEnd(viewport)));
+        mergeRequestModel.loadMore();
+
+        refresher = mergeRequestListWorker.startRefresh(changes -> SwingUtilities.invokeLater(() -> mergeRequestModel.applyChanges(changes)));
+    }
+
+    @Override
+    protected void dispose() {
+        if (refresher != null) {
+            refresher.stop();
+        }
+        super.dispose();
+    }
+
+    /**
+     * Next page is loaded when last rows are visible, also when loaded rows do not fill the table
+     * Viewport notifies both scrolling and resizing, so first page that fits into shown dialog is followed by next one.
+     */
+    private void loadMoreWhenScrolledToEnd(JViewport viewport) {
+        if (mergeRequestModel.isComplete() || !viewport.isShowing()) {
+            return;
+        }
+        Rectangle visible = viewport.getViewRect();
+        if (visible.y + visible.height >= listOfRequests.getHeight() - listOfRequests.getRowHeight() * LOAD_AHEAD_ROWS) {
+            mergeRequestModel.loadMore();
+        }
     }
 
     @Override
     protected void doOKAction() {
-        GitlabMergeRequest mergeRequest =
-                (GitlabMergeRequest) listOfRequests.getValueAt(listOfRequests.getSelectedRow(), 5);
+        if (mergeRequestModel == null || listOfRequests.getSelectedRow() < 0) {
+            // selected merge request was closed by refresh
+            return;
+        }
+        GitlabMergeRequest mergeRequest = mergeRequestModel.getMergeRequest(listOfRequests.convertRowIndexToModel(listOfRequests.getSelectedRow()));
         CodeReviewDialog codeReviewDialog = new CodeReviewDialog(project, mergeRequest, mergeRequestListWorker, file);
         codeReviewDialog.show();
         if (codeReviewDialog.isOK()) {
@@ -67,28 +136,6 @@ public class GitLabMergeRequestListDialog extends DialogWrapper {
         }
     }
 
-    private TableModel mergeRequestModel(List<GitlabMergeRequest> mergeRequests) {
-        Object[] columnNames = {"Merge request", "Author", "Source", "Target", "Assignee", ""};
-        Object[][] data = new Object[mergeRequests.size()][columnNames.length];
-        int i = 0;
-        for (GitlabMergeRequest mergeRequest : mergeRequests) {
-            Object[] row = new Object[columnNames.length];
-            row[0] = mergeRequest.getTitle();
-            row[1] = mergeRequest.getAuthor().getName();
-            row[2] = mergeRequest.getSourceBranch();
-            row[3] = mergeRequest.getTargetBranch();
-            String assignee = "";
-            if (mergeRequest.getAssignee() != null) {
-                assignee = mergeRequest.getAssignee().getName();
-            }
-            row[4] = assignee;
-            row[5] = mergeRequest;
-            data[i] = row;
-            i++;
-        }
-        return new ReadOnlyTableModel(data, columnNames);
-    }
-
     @Nullable
     @Override
     protected JComponent createCenterPanel() {
@@ -1,28 +1,34 @@
 package com.ppolivka.gitlabprojects.merge.list;
 
+import com.intellij.concurrency.JobScheduler;
 import com.intellij.notification.NotificationListener;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vcs.VcsNotifier;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.util.containers.Convertor;
+import com.ppolivka.gitlabprojects.api.ApiFacade;
 import com.ppolivka.gitlabprojects.configuration.ProjectState;
 import com.ppolivka.gitlabprojects.configuration.SettingsState;
+import com.ppolivka.gitlabprojects.dto.GitlabServer;
 import com.ppolivka.gitlabprojects.exception.MergeRequestException;
 import com.ppolivka.gitlabprojects.merge.GitLabDiffViewWorker;
 import com.ppolivka.gitlabprojects.merge.GitLabMergeRequestWorker;
-import com.ppolivka.gitlabprojects.util.GitLabUtil;
+import com.ppolivka.gitlabprojects.merge.GitLabServerDiffWorker;
+import com.ppolivka.gitlabprojects.merge.info.BranchInfo;
+import com.ppolivka.gitlabprojects.merge.info.DiffInfo;
 import git4idea.commands.Git;
 import git4idea.repo.GitRepository;
 import org.gitlab.api.models.GitlabMergeRequest;
 import org.gitlab.api.models.GitlabProject;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.ide.PooledThreadExecutor;
 
 import java.io.IOException;
-import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static com.ppolivka.gitlabprojects.merge.GitLabMergeRequestWorker.Util.fillRequiredInfo;
 import static com.ppolivka.gitlabprojects.util.MessageUtil.showErrorDialog;
@@ -46,8 +52,6 @@ public class GitLabMergeRequestListWorker implements GitLabMergeRequestWorker {
     private String remoteProjectName;
     private GitLabDiffViewWorker diffViewWorker;
 
-    private List<GitlabMergeRequest> mergeRequests;
-
     public void mergeBranches(final Project project, final GitlabMergeRequest mergeRequest) {
         new Task.Backgroundable(project, "Merging Branches...") {
             @Override
@@ -64,28 +68,60 @@ public class GitLabMergeRequestListWorker implements GitLabMergeRequestWorker {
     }
 
 
+    /**
+     * Shows diff with engine configured for the server, the other engine is tried when it fails
+     */
+    public void showMergeRequestDiff(final GitlabMergeRequest mergeRequest, final BranchInfo sourceBranch, final BranchInfo targetBranch) {
+        GitlabServer server = settingsState.currentGitlabServer(gitRepository);
+        boolean preferServer = server != null && server.getDiffEngine() == GitlabServer.DiffEngine.SERVER;
+        GitLabServerDiffWorker serverDiffWorker = new GitLabServerDiffWorker(project, gitRepository.getRoot(), settingsState.api(gitRepository), gitlabProject);
+
+        if (preferServer && serverDiffWorker.showDiffDialog(mergeRequest)) {
+            return;
+        }
+        DiffInfo diffInfo = diffViewWorker.collectDiffInfo(sourceBranch, targetBranch);
+        if (diffInfo != null) {
+            diffViewWorker.showDiffDialog(diffInfo);
+            return;
+        }
+        if (!preferServer && serverDiffWorker.showDiffDialog(mergeRequest)) {
+            return;
+        }
+        showErrorDialog(project, "Can't collect diff data", "Cannot Show Diff Info");
+    }
+
+    /**
+     * Open merge requests of the project, pages are requested from server as iterator advances
+     */
+    public Iterator<GitlabMergeRequest> openMergeRequests() throws IOException {
+        return settingsState.api(gitRepository).streamMergeRequests(gitlabProject).iterator();
+    }
+
+    /**
+     * Starts polling of merge request changes, listener is called on pooled thread
+     */
+    MergeRequestRefresher startRefresh(Consumer<List<GitlabMergeRequest>> listener) {
+        ApiFacade api = settingsState.api(gitRepository);
+        MergeRequestRefresher refresher = new MergeRequestRefresher(since -> api.getMergeRequestsUpdatedAfter(gitlabProject, since), listener,
+                JobScheduler.getScheduler(), PooledThreadExecutor.INSTANCE);
+        refresher.start();
+        return refresher;
+    }
+
+    /**
+     * Resolves repository and GitLab project of the file, must not be called on event dispatch thread
+     *
+     * @return null when merge requests cannot be listed, error is already shown to user
+     */
+    @Nullable
     public static GitLabMergeRequestListWorker create(@NotNull final Project project, @Nullable final VirtualFile file) {
-        return GitLabUtil.computeValueInModal(project, "Loading data...", new Convertor<ProgressIndicator, GitLabMergeRequestListWorker>() {
-            @Override
-            public GitLabMergeRequestListWorker convert(ProgressIndicator indicator) {
-                GitLabMergeRequestListWorker mergeRequestListWorker = new GitLabMergeRequestListWorker();
-
-                try {
-                    fillRequiredInfo(mergeRequestListWorker, project, file);
-                } catch (MergeRequestException e) {
-                  return null;
-                }
-
-                try {
-                    mergeRequestListWorker.setMergeRequests(settingsState.api(project, file).getMergeRequests(mergeRequestListWorker.getGitlabProject()));
-                } catch (IOException e) {
-                    mergeRequestListWorker.setMergeRequests(Collections.<GitlabMergeRequest>emptyList());
-                    showErrorDialog(project, "Cannot load merge requests from GitLab API", "Cannot Load Merge Requests");
-                }
-
-                return mergeRequestListWorker;
-            }
-        });
+        GitLabMergeRequestListWorker mergeRequestListWorker = new GitLabMergeRequestListWorker();
+        try {
+            fillRequiredInfo(mergeRequestListWorker, project, file);
+        } catch (MergeRequestException e) {
+            return null;
+        }
+        return mergeRequestListWorker;
     }
 
     //region Getters & Setters
@@ -169,12 +205,5 @@ public class GitLabMergeRequestListWorker implements GitLabMergeRequestWorker {
         this.diffViewWorker = diffViewWorker;
     }
 
-    public List<GitlabMergeRequest> getMergeRequests() {
-        return mergeRequests;
-    }
-
-    public void setMergeRequests(List<GitlabMergeRequest> mergeRequests) {
-        this.mergeRequests = mergeRequests;
-    }
     //endregion
 }
@@ -0,0 +1,125 @@
+package com.ppolivka.gitlabprojects.merge.list;
+
+import org.gitlab.api.models.GitlabMergeRequest;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Polls merge requests updated since last poll and passes them to listener
+ * Interval is reset to minimum when something changed and doubles with every poll without changes.
+ */
+class MergeRequestRefresher {
+
+    static final long MIN_INTERVAL = TimeUnit.SECONDS.toMillis(15);
+    static final long MAX_INTERVAL = TimeUnit.MINUTES.toMillis(5);
+
+    /** Merge requests updated shortly before list was opened may be missing in loaded pages */
+    static final long CLOCK_SKEW = TimeUnit.MINUTES.toMillis(1);
+
+    /** Server keeps update time in seconds, merge requests updated in the same second as the last reported one are polled again */
+    static final long POLL_OVERLAP = TimeUnit.SECONDS.toMillis(5);
+
+    interface ChangeSource {
+        List<GitlabMergeRequest> updatedAfter(Date since) throws IOException;
+    }
+
+    private final ChangeSource changeSource;
+    private final Consumer<List<GitlabMergeRequest>> listener;
+    private final ScheduledExecutorService scheduler;
+    private final Executor executor;
+
+    private volatile long interval = MIN_INTERVAL;
+    private volatile Date lastUpdate;
+    /** Update times of merge requests reported within the overlap, by id, so they are not reported twice */
+    private final Map<Integer, Date> reportedUpdates = new HashMap<>();
+    private volatile boolean stopped;
+    private volatile ScheduledFuture<?> scheduled;
+
+    /**
+     * @param listener called on executor thread with merge requests created, updated, closed or merged since last poll
+     */
+    MergeRequestRefresher(ChangeSource changeSource, Consumer<List<GitlabMergeRequest>> listener, ScheduledExecutorService scheduler, Executor executor) {
+        this.changeSource = changeSource;
+        this.listener = listener;
+        this.scheduler = scheduler;
+        this.executor = executor;
+        this.lastUpdate = new Date(System.currentTimeMillis() - CLOCK_SKEW);
+    }
+
+    void start() {
+        schedule();
+    }
+
+    void stop() {
+        stopped = true;
+        ScheduledFuture<?> current = scheduled;
+        if (current != null) {
+            current.cancel(false);
+        }
+    }
+
+    long getInterval() {
+        return interval;
+    }
+
+    /**
+     * Polls merge requests updated since shortly before the last reported update, so the ones updated
+     * in the same second are not lost. Merge requests already reported with the same update time are skipped.
+     */
+    synchronized void poll() {
+        List<GitlabMergeRequest> changes;
+        try {
+            Date since = new Date(lastUpdate.getTime() - POLL_OVERLAP);
+            changes = changeSource.updatedAfter(since).stream()
+                    .filter(mergeRequest -> mergeRequest.getUpdatedAt() == null || !mergeRequest.getUpdatedAt().before(since))
+                    .filter(mergeRequest -> mergeRequest.getUpdatedAt() == null || !mergeRequest.getUpdatedAt().equals(reportedUpdates.get(mergeRequest.getId())))
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            interval = Math.min(interval * 2, MAX_INTERVAL);
+            return;
+        }
+        if (changes.isEmpty()) {
+            interval = Math.min(interval * 2, MAX_INTERVAL);
+            return;
+        }
+        interval = MIN_INTERVAL;
+        changes.stream()
+                .map(GitlabMergeRequest::getUpdatedAt)
+                .filter(updatedAt -> updatedAt != null && updatedAt.after(lastUpdate))
+                .max(Date::compareTo)
+                .ifPresent(updatedAt -> lastUpdate = updatedAt);
+        for (GitlabMergeRequest mergeRequest : changes) {
+            if (mergeRequest.getUpdatedAt() != null) {
+                reportedUpdates.put(mergeRequest.getId(), mergeRequest.getUpdatedAt());
+            }
+        }
+        long overlapStart = lastUpdate.getTime() - POLL_OVERLAP;
+        reportedUpdates.values().removeIf(updatedAt -> updatedAt.getTime() < overlapStart);
+        listener.accept(changes);
+    }
+
+    private void schedule() {
+        if (stopped) {
+            return;
+        }
+        scheduled = scheduler.schedule(() -> executor.execute(() -> {
+            try {
+                if (!stopped) {
+                    poll();
+                }
+            } finally {
+                schedule();
+            }
+        }), interval, TimeUnit.MILLISECONDS);
+    }
+}
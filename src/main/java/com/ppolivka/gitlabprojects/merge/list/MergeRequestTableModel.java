@@ -0,0 +1,158 @@
+package com.ppolivka.gitlabprojects.merge.list;
+
+import org.gitlab.api.models.GitlabMergeRequest;
+import org.gitlab.api.models.GitlabUser;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Read only table of merge requests that are loaded page by page
+ * Rows are merge requests as returned by API, next page is requested by {@link #loadMore()},
+ * typically when table is scrolled to its end.
+ */
+class MergeRequestTableModel extends AbstractTableModel {
+
+    private static final String OPENED = "opened";
+
+    private static final String[] COLUMNS = {"Merge request", "Author", "Source", "Target", "Assignee"};
+
+    private final List<GitlabMergeRequest> mergeRequests = new ArrayList<>();
+    private final Iterator<GitlabMergeRequest> source;
+    private final int pageSize;
+    private final Executor executor;
+    private final Consumer<RuntimeException> errorHandler;
+
+    private boolean loading;
+    private boolean complete;
+
+    /**
+     * @param source       iterator requesting pages from server lazily, used only on executor thread
+     * @param errorHandler called on event dispatch thread when page can not be loaded
+     */
+    MergeRequestTableModel(Iterator<GitlabMergeRequest> source, int pageSize, Executor executor, Consumer<RuntimeException> errorHandler) {
+        this.source = source;
+        this.pageSize = pageSize;
+        this.executor = executor;
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * Starts loading of next page in background, does nothing while page is loading or when all rows are loaded
+     * Must be called on event dispatch thread.
+     */
+    void loadMore() {
+        if (loading || complete) {
+            return;
+        }
+        loading = true;
+        CompletableFuture.supplyAsync(this::nextPage, executor).whenComplete((page, error) -> SwingUtilities.invokeLater(() -> {
+            loading = false;
+            if (error != null) {
+                complete = true;
+                errorHandler.accept(error.getCause() instanceof RuntimeException ? (RuntimeException) error.getCause() : new RuntimeException(error));
+                return;
+            }
+            complete = page.size() < pageSize;
+            int firstRow = mergeRequests.size();
+            for (GitlabMergeRequest mergeRequest : page) {
+                // already added by refresh, when pages shifted because of new merge requests
+                if (indexOf(mergeRequest) < 0) {
+                    mergeRequests.add(mergeRequest);
+                }
+            }
+            if (mergeRequests.size() > firstRow) {
+                fireTableRowsInserted(firstRow, mergeRequests.size() - 1);
+            }
+        }));
+    }
+
+    /**
+     * Merges changed merge requests into loaded rows, must be called on event dispatch thread
+     * Open merge request replaces its row or is added to the top, closed or merged one is removed.
+     */
+    void applyChanges(List<GitlabMergeRequest> changes) {
+        for (GitlabMergeRequest mergeRequest : changes) {
+            int row = indexOf(mergeRequest);
+            boolean open = OPENED.equals(mergeRequest.getState());
+            if (row >= 0 && open) {
+                mergeRequests.set(row, mergeRequest);
+                fireTableRowsUpdated(row, row);
+            } else if (row >= 0) {
+                mergeRequests.remove(row);
+                fireTableRowsDeleted(row, row);
+            } else if (open) {
+                mergeRequests.add(0, mergeRequest);
+                fireTableRowsInserted(0, 0);
+            }
+        }
+    }
+
+    private int indexOf(GitlabMergeRequest mergeRequest) {
+        for (int i = 0; i < mergeRequests.size(); i++) {
+            if (Objects.equals(mergeRequests.get(i).getId(), mergeRequest.getId())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    boolean isComplete() {
+        return complete;
+    }
+
+    GitlabMergeRequest getMergeRequest(int row) {
+        return mergeRequests.get(row);
+    }
+
+    private List<GitlabMergeRequest> nextPage() {
+        List<GitlabMergeRequest> page = new ArrayList<>(pageSize);
+        while (page.size() < pageSize && source.hasNext()) {
+            page.add(source.next());
+        }
+        return page;
+    }
+
+    @Override
+    public int getRowCount() {
+        return mergeRequests.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        GitlabMergeRequest mergeRequest = mergeRequests.get(row);
+        switch (column) {
+            case 0:
+                return mergeRequest.getTitle();
+            case 1:
+                return name(mergeRequest.getAuthor());
+            case 2:
+                return mergeRequest.getSourceBranch();
+            case 3:
+                return mergeRequest.getTargetBranch();
+            default:
+                return name(mergeRequest.getAssignee());
+        }
+    }
+
+    private static String name(GitlabUser user) {
+        return user != null ? user.getName() : "";
+    }
+}
@@ -4,16 +4,20 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.DialogWrapper;
 import com.intellij.openapi.ui.ValidationInfo;
 import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.ui.SortedComboBoxModel;
 import com.ppolivka.gitlabprojects.component.SearchBoxModel;
 import com.ppolivka.gitlabprojects.configuration.ProjectState;
 import com.ppolivka.gitlabprojects.merge.info.BranchInfo;
+import com.ppolivka.gitlabprojects.util.GitLabUtil;
 import org.apache.commons.lang.StringUtils;
 import org.gitlab.api.models.GitlabUser;
-import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
+import java.util.concurrent.CompletableFuture;
+
+import static com.ppolivka.gitlabprojects.util.MessageUtil.showErrorDialog;
 
 /**
  * Dialog fore creating merge requests
@@ -40,24 +44,51 @@ public class CreateMergeRequestDialog extends DialogWrapper {
 
     final ProjectState projectState;
 
-    @NotNull
-    final GitLabCreateMergeRequestWorker mergeRequestWorker;
+    @Nullable
+    private VirtualFile file;
+
+    @Nullable
+    private GitLabCreateMergeRequestWorker mergeRequestWorker;
 
-    public CreateMergeRequestDialog(@Nullable Project project, @NotNull GitLabCreateMergeRequestWorker gitLabMergeRequestWorker) {
+    public CreateMergeRequestDialog(@Nullable Project project, @Nullable VirtualFile file) {
         super(project);
         this.project = project;
+        this.file = file;
         projectState = ProjectState.getInstance(project);
-        mergeRequestWorker = gitLabMergeRequestWorker;
         init();
 
     }
 
+    /**
+     * Dialog is shown right away, branches and assignees are filled in once they are loaded
+     */
     @Override
     protected void init() {
         super.init();
         setTitle("Create Merge Request");
         setVerticalStretch(2f);
 
+        setOKActionEnabled(false);
+        currentBranch.setText("Loading...");
+        targetBranch.setEnabled(false);
+        assigneeBox.setEnabled(false);
+        diffButton.setEnabled(false);
+
+        CompletableFuture<GitLabCreateMergeRequestWorker> worker = GitLabUtil.computeValueInBackground(getDisposable(),
+                indicator -> GitLabCreateMergeRequestWorker.create(project, file, indicator));
+        GitLabUtil.whenLoaded(getDisposable(), worker, this::showMergeRequestForm, e -> {
+            showErrorDialog(project, "Cannot load data from GitLab API", "Cannot Create Merge Request");
+            close(CANCEL_EXIT_CODE);
+        });
+    }
+
+    private void showMergeRequestForm(@Nullable GitLabCreateMergeRequestWorker mergeRequestWorker) {
+        if (mergeRequestWorker == null) {
+            close(CANCEL_EXIT_CODE);
+            return;
+        }
+        this.mergeRequestWorker = mergeRequestWorker;
+
         SearchBoxModel searchBoxModel = new SearchBoxModel(assigneeBox, mergeRequestWorker.getSearchableUsers());
         assigneeBox.setModel(searchBoxModel);
         assigneeBox.setEditable(true);
@@ -74,12 +105,15 @@ public class CreateMergeRequestDialog extends DialogWrapper {
             targetBranch.setSelectedItem(mergeRequestWorker.getLastUsedBranch());
         }
         lastSelectedBranch = getSelectedBranch();
+        mergeRequestWorker.prepareDiff(lastSelectedBranch);
 
         targetBranch.addActionListener(e -> {
             prepareTitle();
+            if (!getSelectedBranch().equals(lastSelectedBranch)) {
+                mergeRequestWorker.prepareDiff(getSelectedBranch());
+            }
             lastSelectedBranch = getSelectedBranch();
             projectState.setLastMergedBranch(getSelectedBranch().getName());
-            mergeRequestWorker.getDiffViewWorker().launchLoadDiffInfo(mergeRequestWorker.getLocalBranchInfo(), getSelectedBranch());
         });
 
         prepareTitle();
@@ -95,6 +129,11 @@ public class CreateMergeRequestDialog extends DialogWrapper {
         }
 
         diffButton.addActionListener(e -> mergeRequestWorker.getDiffViewWorker().showDiffDialog(mergeRequestWorker.getLocalBranchInfo(), getSelectedBranch()));
+
+        targetBranch.setEnabled(true);
+        assigneeBox.setEnabled(true);
+        diffButton.setEnabled(true);
+        setOKActionEnabled(true);
     }
 
     @Override
@@ -110,9 +149,20 @@ public class CreateMergeRequestDialog extends DialogWrapper {
         }
     }
 
+    @Override
+    protected void dispose() {
+        if (mergeRequestWorker != null) {
+            mergeRequestWorker.cancelPreparedDiff();
+        }
+        super.dispose();
+    }
+
     @Nullable
     @Override
     protected ValidationInfo doValidate() {
+        if (mergeRequestWorker == null) {
+            return null;
+        }
         if (StringUtils.isBlank(mergeTitle.getText())) {
             return new ValidationInfo("Merge title cannot be empty", mergeTitle);
         }
@@ -1,14 +1,16 @@
 package com.ppolivka.gitlabprojects.merge.request;
 
 import com.intellij.notification.NotificationListener;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.ThrowableComputable;
+import com.intellij.openapi.vcs.VcsException;
 import com.intellij.openapi.vcs.VcsNotifier;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.util.ThrowableConvertor;
-import com.intellij.util.containers.Convertor;
+import com.ppolivka.gitlabprojects.api.ApiFacade;
 import com.ppolivka.gitlabprojects.api.dto.ServerDto;
 import com.ppolivka.gitlabprojects.dto.GitlabServer;
 import com.ppolivka.gitlabprojects.util.GitLabUtil;
@@ -20,6 +22,7 @@ import com.ppolivka.gitlabprojects.merge.GitLabMergeRequestWorker;
 import com.ppolivka.gitlabprojects.merge.info.BranchInfo;
 import com.ppolivka.gitlabprojects.merge.info.DiffInfo;
 import git4idea.GitLocalBranch;
+import git4idea.GitRevisionNumber;
 import git4idea.commands.Git;
 import git4idea.commands.GitCommandResult;
 import git4idea.repo.GitRepository;
@@ -29,10 +32,12 @@ import org.gitlab.api.models.GitlabProject;
 import org.gitlab.api.models.GitlabUser;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.ide.PooledThreadExecutor;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.*;
 
 import static com.ppolivka.gitlabprojects.util.MessageUtil.showErrorDialog;
 import static com.ppolivka.gitlabprojects.util.MessageUtil.showWarningDialog;
@@ -48,6 +53,9 @@ public class GitLabCreateMergeRequestWorker implements GitLabMergeRequestWorker
 
     private static final String CANNOT_SHOW_DIFF_INFO = "Cannot Show Diff Info";
 
+    /** Single timeout for data loaded in background before dialog is filled */
+    private static final long LOAD_TIMEOUT_SECONDS = 60;
+
     private static SettingsState settingsState = SettingsState.getInstance();
 
     private Git git;
@@ -64,6 +72,7 @@ public class GitLabCreateMergeRequestWorker implements GitLabMergeRequestWorker
     private List<BranchInfo> branches;
     private BranchInfo lastUsedBranch;
     private SearchableUsers searchableUsers;
+    private volatile PreparedDiff preparedDiff;
 
     public void createMergeRequest(final BranchInfo branch, final GitlabUser assignee, final String title, final String description, final boolean removeSourceBranch) {
         new Task.Backgroundable(project, "Creating merge request...") {
@@ -78,17 +87,30 @@ public class GitLabCreateMergeRequestWorker implements GitLabMergeRequestWorker
 
                 projectState.setDeleteMergedBranch(removeSourceBranch);
 
-                indicator.setText("Pushing current branch...");
-                GitCommandResult result = git.push(gitRepository, branch.getRemoteName(), remoteUrl, gitLocalBranch.getName(), true);
-                if (!result.success()) {
-                    showErrorDialog(project, "Push failed:<br/>" + result.getErrorOutputAsHtmlString(), CANNOT_CREATE_MERGE_REQUEST);
+                ApiFacade api = settingsState.api(gitRepository);
+                CompletableFuture<String> validation = CompletableFuture.supplyAsync(() -> validateTarget(api, branch), PooledThreadExecutor.INSTANCE);
+
+                if (isPushed(api)) {
+                    indicator.setText("Current branch is up to date on server...");
+                } else {
+                    indicator.setText("Pushing current branch...");
+                    GitCommandResult result = git.push(gitRepository, branch.getRemoteName(), remoteUrl, gitLocalBranch.getName(), true);
+                    if (!result.success()) {
+                        showErrorDialog(project, "Push failed:<br/>" + result.getErrorOutputAsHtmlString(), CANNOT_CREATE_MERGE_REQUEST);
+                        return;
+                    }
+                }
+
+                String validationError = validation.join();
+                if (validationError != null) {
+                    showErrorDialog(project, validationError, CANNOT_CREATE_MERGE_REQUEST);
                     return;
                 }
 
                 indicator.setText("Creating merge request...");
                 GitlabMergeRequest mergeRequest;
                 try {
-                    mergeRequest = settingsState.api(gitRepository).createMergeRequest(gitlabProject, assignee, gitLocalBranch.getName(), branch.getName(), title, description, removeSourceBranch);
+                    mergeRequest = api.createMergeRequest(gitlabProject, assignee, gitLocalBranch.getName(), branch.getName(), title, description, removeSourceBranch);
                 } catch (IOException e) {
                     showErrorDialog(project, "Cannot create Merge Request via GitLab REST API", CANNOT_CREATE_MERGE_REQUEST);
                     return;
@@ -99,6 +121,46 @@ public class GitLabCreateMergeRequestWorker implements GitLabMergeRequestWorker
         }.queue();
     }
 
+    /**
+     * Push also sets upstream of the branch, so it is skipped only when the upstream is already configured
+     *
+     * @return true when local branch tracks remote one and branch on server points to the same commit, so push can be skipped
+     */
+    private boolean isPushed(ApiFacade api) {
+        if (gitLocalBranch.findTrackedBranch(gitRepository) == null) {
+            return false;
+        }
+        try {
+            GitlabBranch remoteBranch = api.getBranch(gitlabProject, gitLocalBranch.getName());
+            if (remoteBranch == null || remoteBranch.getCommit() == null) {
+                return false;
+            }
+            String localHash = GitRevisionNumber.resolve(project, gitRepository.getRoot(), gitLocalBranch.getName()).asString();
+            return localHash.equals(remoteBranch.getCommit().getId());
+        } catch (IOException | VcsException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Checks done while branch is being pushed
+     *
+     * @return error message or null when merge request can be created
+     */
+    private String validateTarget(ApiFacade api, BranchInfo branch) {
+        try {
+            if (api.getBranch(gitlabProject, branch.getName()) == null) {
+                return "Target branch " + branch.getName() + " does not exist in GitLab";
+            }
+            if (!api.getMergeRequests(gitlabProject, gitLocalBranch.getName(), branch.getName()).isEmpty()) {
+                return "Merge request from " + gitLocalBranch.getName() + " to " + branch.getName() + " already exists";
+            }
+        } catch (IOException e) {
+            // server decides when merge request is created
+        }
+        return null;
+    }
+
     private String generateMergeRequestUrl(GitlabServer server, GitlabMergeRequest mergeRequest) {
         final String hostText = server.getApiUrl();
         StringBuilder helpUrl = new StringBuilder();
@@ -112,26 +174,55 @@ public class GitLabCreateMergeRequestWorker implements GitLabMergeRequestWorker
         return helpUrl.toString();
     }
 
+    /**
+     * Starts diff with selected target branch in background, so it is ready when merge request is confirmed
+     * Diff prepared for previously selected branch is cancelled.
+     */
+    public void prepareDiff(@Nullable BranchInfo branch) {
+        cancelPreparedDiff();
+        if (branch == null || branch.getName() == null) {
+            return;
+        }
+        ProgressIndicator indicator = new EmptyProgressIndicator();
+        preparedDiff = new PreparedDiff(branch, diffViewWorker.launchLoadDiffInfo(localBranchInfo, branch, indicator), indicator);
+    }
+
+    public void cancelPreparedDiff() {
+        PreparedDiff prepared = preparedDiff;
+        preparedDiff = null;
+        if (prepared != null && !prepared.diffInfo.isDone()) {
+            prepared.indicator.cancel();
+        }
+    }
+
     public boolean checkAction(@Nullable final BranchInfo branch) {
         if (branch == null) {
             showWarningDialog(project, "Target branch is not selected", CANNOT_CREATE_MERGE_REQUEST);
             return false;
         }
 
+        PreparedDiff prepared = preparedDiff;
         DiffInfo info;
         try {
-            info = GitLabUtil
-                    .computeValueInModal(project, "Collecting diff data...", new ThrowableConvertor<ProgressIndicator, DiffInfo, IOException>() {
-                        @Override
-                        public DiffInfo convert(ProgressIndicator indicator) throws IOException {
-                            return GitLabUtil.runInterruptable(indicator, new ThrowableComputable<DiffInfo, IOException>() {
-                                @Override
-                                public DiffInfo compute() throws IOException {
-                                    return diffViewWorker.getDiffInfo(localBranchInfo, branch);
-                                }
-                            });
-                        }
-                    });
+            if (prepared != null && prepared.branch.equals(branch) && prepared.diffInfo.isDone() && !prepared.diffInfo.isCompletedExceptionally()) {
+                info = prepared.diffInfo.join();
+            } else {
+                info = GitLabUtil
+                        .computeValueInModal(project, "Collecting diff data...", new ThrowableConvertor<ProgressIndicator, DiffInfo, IOException>() {
+                            @Override
+                            public DiffInfo convert(ProgressIndicator indicator) throws IOException {
+                                return GitLabUtil.runInterruptable(indicator, new ThrowableComputable<DiffInfo, IOException>() {
+                                    @Override
+                                    public DiffInfo compute() throws IOException {
+                                        if (prepared != null && prepared.branch.equals(branch) && !prepared.diffInfo.isCompletedExceptionally()) {
+                                            return GitLabDiffViewWorker.awaitDiffInfo(prepared.diffInfo);
+                                        }
+                                        return diffViewWorker.getDiffInfo(localBranchInfo, branch, indicator);
+                                    }
+                                });
+                            }
+                        });
+            }
         } catch (IOException e) {
             showErrorDialog(project, "Can't collect diff data", CANNOT_CREATE_MERGE_REQUEST);
             return true;
@@ -159,56 +250,84 @@ public class GitLabCreateMergeRequestWorker implements GitLabMergeRequestWorker
     }
 
 
-    public static GitLabCreateMergeRequestWorker create(@NotNull final Project project, @Nullable final VirtualFile file) {
-        return GitLabUtil.computeValueInModal(project, "Loading data...", new Convertor<ProgressIndicator, GitLabCreateMergeRequestWorker>() {
+    /**
+     * Loads everything the create dialog shows, called on pooled thread
+     *
+     * @return worker or null when required data is missing, reason is already reported
+     */
+    @Nullable
+    public static GitLabCreateMergeRequestWorker create(@NotNull final Project project, @Nullable final VirtualFile file,
+                                                        @NotNull ProgressIndicator indicator) {
+        GitLabCreateMergeRequestWorker mergeRequestWorker = new GitLabCreateMergeRequestWorker();
 
-            @Override
-            public GitLabCreateMergeRequestWorker convert(ProgressIndicator indicator) {
-                GitLabCreateMergeRequestWorker mergeRequestWorker = new GitLabCreateMergeRequestWorker();
+        try {
+            Util.fillRequiredInfo(mergeRequestWorker, project, file);
+        } catch (MergeRequestException e) {
+            return null;
+        }
+        // branches and members only need project id, both are requested right away and local data is read meanwhile
+        ApiFacade api = settingsState.api(project, file);
+        GitlabProject gitlabProject = mergeRequestWorker.getGitlabProject();
+        CompletableFuture<List<GitlabBranch>> branchesFuture = CompletableFuture.supplyAsync(() -> {
+            try {
+                return api.loadProjectBranches(gitlabProject);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, PooledThreadExecutor.INSTANCE);
+        ProjectMemberDirectory.prefetch(api, gitlabProject);
+
+        //region Additional fields
+        GitLocalBranch currentBranch = mergeRequestWorker.getGitRepository().getCurrentBranch();
+        if (currentBranch == null) {
+            branchesFuture.cancel(true);
+            showErrorDialog(project, "No current branch", CANNOT_CREATE_MERGE_REQUEST);
+            return null;
+        }
+        mergeRequestWorker.setGitLocalBranch(currentBranch);
 
-                try {
-                    Util.fillRequiredInfo(mergeRequestWorker, project, file);
-                } catch (MergeRequestException e) {
-                    return null;
-                }
+        String lastMergedBranch = mergeRequestWorker.getProjectState().getLastMergedBranch();
 
-                //region Additional fields
-                GitLocalBranch currentBranch = mergeRequestWorker.getGitRepository().getCurrentBranch();
-                if (currentBranch == null) {
-                    showErrorDialog(project, "No current branch", CANNOT_CREATE_MERGE_REQUEST);
-                    return null;
+        try {
+            List<GitlabBranch> branches = GitLabUtil.runInterruptable(indicator, () -> await(branchesFuture));
+            List<BranchInfo> branchInfos = new ArrayList<>();
+            for (GitlabBranch branch : branches) {
+                BranchInfo branchInfo = new BranchInfo(branch.getName(), mergeRequestWorker.getRemoteProjectName());
+                if (branch.getName().equals(lastMergedBranch)) {
+                    mergeRequestWorker.setLastUsedBranch(branchInfo);
                 }
-                mergeRequestWorker.setGitLocalBranch(currentBranch);
-
-                String lastMergedBranch = mergeRequestWorker.getProjectState().getLastMergedBranch();
+                branchInfos.add(branchInfo);
+            }
+            mergeRequestWorker.setBranches(branchInfos);
+        } catch (Exception e) {
+            if (!indicator.isCanceled()) {
+                showErrorDialog(project, "Cannot list GitLab branches", CANNOT_CREATE_MERGE_REQUEST);
+            }
+            return null;
+        }
 
-                try {
-                    List<GitlabBranch> branches = settingsState
-                            .api(project, file)
-                            .loadProjectBranches(mergeRequestWorker.getGitlabProject());
-                    List<BranchInfo> branchInfos = new ArrayList<>();
-                    for (GitlabBranch branch : branches) {
-                        BranchInfo branchInfo = new BranchInfo(branch.getName(), mergeRequestWorker.getRemoteProjectName());
-                        if (branch.getName().equals(lastMergedBranch)) {
-                            mergeRequestWorker.setLastUsedBranch(branchInfo);
-                        }
-                        branchInfos.add(branchInfo);
-                    }
-                    mergeRequestWorker.setBranches(branchInfos);
-                } catch (Exception e) {
-                    showErrorDialog(project, "Cannot list GitLab branches", CANNOT_CREATE_MERGE_REQUEST);
-                    return null;
-                }
+        mergeRequestWorker.setLocalBranchInfo(new BranchInfo(mergeRequestWorker.getGitLocalBranch().getName(), mergeRequestWorker.getRemoteProjectName(), false));
+        mergeRequestWorker.setSearchableUsers(new SearchableUsers(project, file, mergeRequestWorker.getGitlabProject()));
+        //endregion
 
-                mergeRequestWorker.setLocalBranchInfo(new BranchInfo(mergeRequestWorker.getGitLocalBranch().getName(), mergeRequestWorker.getRemoteProjectName(), false));
-                mergeRequestWorker.setSearchableUsers(new SearchableUsers(project, file, mergeRequestWorker.getGitlabProject()));
-                //endregion
+        return mergeRequestWorker;
+    }
 
-                return mergeRequestWorker;
+    /**
+     * Waits for background load, at most {@link #LOAD_TIMEOUT_SECONDS}
+     */
+    private static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get(LOAD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
             }
-
-        });
-
+            throw new IOException(e.getCause());
+        } catch (InterruptedException | TimeoutException e) {
+            future.cancel(true);
+            throw new IOException(e);
+        }
     }
 
     //region Getters & Setters
@@ -334,4 +453,16 @@ public class GitLabCreateMergeRequestWorker implements GitLabMergeRequestWorker
 
     //endregion
 
+
+    private static class PreparedDiff {
+        private final BranchInfo branch;
+        private final CompletableFuture<DiffInfo> diffInfo;
+        private final ProgressIndicator indicator;
+
+        PreparedDiff(BranchInfo branch, CompletableFuture<DiffInfo> diffInfo, ProgressIndicator indicator) {
+            this.branch = branch;
+            this.diffInfo = diffInfo;
+            this.indicator = indicator;
+        }
+    }
 }
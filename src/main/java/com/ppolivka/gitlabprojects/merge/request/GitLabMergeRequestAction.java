@@ -25,10 +25,7 @@ public class GitLabMergeRequestAction extends GitLabApiAction {
             return;
         }
 
-        GitLabCreateMergeRequestWorker mergeRequestWorker = GitLabCreateMergeRequestWorker.create(project, file);
-        if(mergeRequestWorker != null) {
-            CreateMergeRequestDialog createMergeRequestDialog = new CreateMergeRequestDialog(project, mergeRequestWorker);
-            DialogManager.show(createMergeRequestDialog);
-        }
+        CreateMergeRequestDialog createMergeRequestDialog = new CreateMergeRequestDialog(project, file);
+        DialogManager.show(createMergeRequestDialog);
     }
 }
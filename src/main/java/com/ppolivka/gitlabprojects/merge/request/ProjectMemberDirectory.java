@@ -0,0 +1,86 @@
+package com.ppolivka.gitlabprojects.merge.request;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.ppolivka.gitlabprojects.api.ApiFacade;
+import org.gitlab.api.models.GitlabProject;
+import org.jetbrains.ide.PooledThreadExecutor;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Member indexes of projects, loaded in background as soon as project is resolved
+ */
+final class ProjectMemberDirectory {
+
+    private static final Logger LOG = Logger.getInstance(ProjectMemberDirectory.class);
+
+    private static final long MAX_AGE = TimeUnit.MINUTES.toMillis(10);
+
+    private static final Map<ApiFacade, Map<Integer, Entry>> ENTRIES = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private ProjectMemberDirectory() {
+    }
+
+    /**
+     * Starts loading of project members, does nothing when fresh index is loaded or being loaded
+     */
+    static void prefetch(ApiFacade api, GitlabProject gitlabProject) {
+        synchronized (ENTRIES) {
+            Map<Integer, Entry> projects = ENTRIES.computeIfAbsent(api, key -> new HashMap<>());
+            Entry entry = projects.get(gitlabProject.getId());
+            if (entry != null && !entry.isExpired() && !entry.members.isCompletedExceptionally()) {
+                return;
+            }
+            CompletableFuture<ProjectMemberIndex> members = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return new ProjectMemberIndex(api.getProjectUsers(gitlabProject));
+                } catch (IOException e) {
+                    LOG.info("Cannot load members of GitLab project " + gitlabProject.getId(), e);
+                    throw new CompletionException(e);
+                }
+            }, PooledThreadExecutor.INSTANCE);
+            projects.put(gitlabProject.getId(), new Entry(members));
+        }
+    }
+
+    /**
+     * Never waits for loading
+     *
+     * @return loaded index or null when it is not loaded yet or loading failed
+     */
+    static ProjectMemberIndex getIfLoaded(ApiFacade api, GitlabProject gitlabProject) {
+        CompletableFuture<ProjectMemberIndex> members = getLoading(api, gitlabProject);
+        if (members == null || !members.isDone() || members.isCompletedExceptionally()) {
+            return null;
+        }
+        return members.join();
+    }
+
+    /**
+     * @return members being loaded or already loaded, null when prefetch was not started
+     */
+    static CompletableFuture<ProjectMemberIndex> getLoading(ApiFacade api, GitlabProject gitlabProject) {
+        synchronized (ENTRIES) {
+            Map<Integer, Entry> projects = ENTRIES.get(api);
+            Entry entry = projects != null ? projects.get(gitlabProject.getId()) : null;
+            return entry != null ? entry.members : null;
+        }
+    }
+
+    private static class Entry {
+        private final CompletableFuture<ProjectMemberIndex> members;
+        private final long startedAt = System.currentTimeMillis();
+
+        Entry(CompletableFuture<ProjectMemberIndex> members) {
+            this.members = members;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() - startedAt > MAX_AGE;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.ppolivka.gitlabprojects.merge.request;
+
+import org.gitlab.api.models.GitlabUser;
+
+import java.util.*;
+
+/**
+ * In memory index of project members for assignee completion
+ * Members are kept in array sorted by username, trigram index over username and name points into that array,
+ * so query of three or more characters only checks members sharing its rarest trigram.
+ */
+class ProjectMemberIndex {
+
+    private static final int GRAM = 3;
+
+    private final GitlabUser[] members;
+    private final String[] keys;
+    private final Map<String, int[]> trigrams = new HashMap<>();
+
+    ProjectMemberIndex(Collection<GitlabUser> users) {
+        members = users.stream()
+                .sorted(Comparator.comparing(user -> lower(user.getUsername())))
+                .toArray(GitlabUser[]::new);
+        keys = new String[members.length];
+
+        Map<String, List<Integer>> postings = new HashMap<>();
+        for (int i = 0; i < members.length; i++) {
+            keys[i] = lower(members[i].getUsername()) + '\n' + lower(members[i].getName());
+            for (int start = 0; start + GRAM <= keys[i].length(); start++) {
+                List<Integer> posting = postings.computeIfAbsent(keys[i].substring(start, start + GRAM), gram -> new ArrayList<>());
+                if (posting.isEmpty() || posting.get(posting.size() - 1) != i) {
+                    posting.add(i);
+                }
+            }
+        }
+        postings.forEach((gram, posting) -> trigrams.put(gram, posting.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    List<GitlabUser> getAll() {
+        return Arrays.asList(members);
+    }
+
+    int size() {
+        return members.length;
+    }
+
+    /**
+     * Members whose username or name contains the query, ordered by username
+     */
+    List<GitlabUser> search(String query) {
+        String normalized = lower(query).trim();
+        if (normalized.isEmpty()) {
+            return getAll();
+        }
+        List<GitlabUser> result = new ArrayList<>();
+        int[] candidates = candidates(normalized);
+        if (candidates == null) {
+            for (int i = 0; i < members.length; i++) {
+                if (keys[i].contains(normalized)) {
+                    result.add(members[i]);
+                }
+            }
+        } else {
+            for (int i : candidates) {
+                if (keys[i].contains(normalized)) {
+                    result.add(members[i]);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return smallest posting list of query trigrams, null for query shorter than trigram
+     */
+    private int[] candidates(String query) {
+        if (query.length() < GRAM) {
+            return null;
+        }
+        int[] smallest = null;
+        for (int start = 0; start + GRAM <= query.length(); start++) {
+            int[] posting = trigrams.get(query.substring(start, start + GRAM));
+            if (posting == null) {
+                return new int[0];
+            }
+            if (smallest == null || posting.length < smallest.length) {
+                smallest = posting;
+            }
+        }
+        return smallest;
+    }
+
+    private static String lower(String value) {
+        return value == null ? "" : value.toLowerCase();
+    }
+}
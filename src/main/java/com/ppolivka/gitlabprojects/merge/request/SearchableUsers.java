@@ -2,15 +2,19 @@ package com.ppolivka.gitlabprojects.merge.request;
 
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.ppolivka.gitlabprojects.api.ApiFacade;
 import com.ppolivka.gitlabprojects.component.Searchable;
 import com.ppolivka.gitlabprojects.configuration.SettingsState;
 import com.ppolivka.gitlabprojects.util.MessageUtil;
 import org.gitlab.api.models.GitlabProject;
+import org.gitlab.api.models.GitlabUser;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import static java.util.Collections.emptyList;
@@ -26,33 +30,64 @@ public class SearchableUsers implements Searchable<SearchableUser, String> {
     private Project project;
     private VirtualFile file;
     private GitlabProject gitlabProject;
-    private Collection<SearchableUser> initialModel;
+    private Collection<SearchableUser> initialModel = emptyList();
+    private final UserSearchCache cache = new UserSearchCache();
     private static SettingsState settingsState = SettingsState.getInstance();
 
     public SearchableUsers(Project project, VirtualFile file, GitlabProject gitlabProject) {
         this.project = project;
         this.file = file;
         this.gitlabProject = gitlabProject;
-        this.initialModel = search("");
     }
 
     @Override
     public Collection<SearchableUser> search(String toSearch) {
         try {
-            List<SearchableUser> users = settingsState.api(project, file).searchUsers(gitlabProject, toSearch).stream().map(SearchableUser::new).collect(Collectors.toList());
+            ProjectMemberIndex memberIndex = ProjectMemberDirectory.getIfLoaded(settingsState.api(project, file), gitlabProject);
+            if (memberIndex != null) {
+                List<GitlabUser> members = memberIndex.search(toSearch);
+                if (!members.isEmpty()) {
+                    return members.stream().map(SearchableUser::new).collect(Collectors.toList());
+                }
+            }
+            List<GitlabUser> gitlabUsers = cache.get(toSearch);
+            if (gitlabUsers == null) {
+                gitlabUsers = new ArrayList<>(settingsState.api(project, file).searchUsers(gitlabProject, toSearch));
+                cache.put(toSearch, gitlabUsers, gitlabUsers.size() < ApiFacade.USER_SEARCH_LIMIT);
+            }
+            List<SearchableUser> users = gitlabUsers.stream().map(SearchableUser::new).collect(Collectors.toList());
             List<SearchableUser> resultingUsers = new ArrayList<>();
             resultingUsers.addAll(users);
             return resultingUsers;
+        } catch (InterruptedIOException e) {
+            // search was cancelled by newer query
         } catch (IOException e) {
             MessageUtil.showErrorDialog(project, "New remote origin cannot be added to this project.", "Cannot Add New Remote");
         }
         return emptyList();
     }
 
+    /**
+     * All project members once they are loaded in background, never waits for them
+     */
     public Collection<SearchableUser> getInitialModel() {
+        ProjectMemberIndex memberIndex = ProjectMemberDirectory.getIfLoaded(settingsState.api(project, file), gitlabProject);
+        if (memberIndex != null) {
+            return memberIndex.getAll().stream().map(SearchableUser::new).collect(Collectors.toList());
+        }
         return initialModel;
     }
 
+    /**
+     * Runs the action once project members are loaded in background, on the loading thread
+     */
+    public void whenMembersLoaded(Runnable action) {
+        CompletableFuture<?> members = ProjectMemberDirectory.getLoading(settingsState.api(project, file), gitlabProject);
+        if (members != null) {
+            members.thenRun(action);
+        }
+    }
+
     public void setInitialModel(Collection<SearchableUser> initialModel) {
         this.initialModel = initialModel;
     }
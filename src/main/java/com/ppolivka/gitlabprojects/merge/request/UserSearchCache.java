@@ -0,0 +1,78 @@
+package com.ppolivka.gitlabprojects.merge.request;
+
+import org.gitlab.api.models.GitlabUser;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * LRU cache of user search results
+ * Query extending cached query with complete result (not cut by page size) is answered from memory,
+ * users are then matched by name, username and email the same way as GitLab does.
+ */
+class UserSearchCache {
+
+    private static final int MAX_QUERIES = 32;
+
+    private final Map<String, Result> results = new LinkedHashMap<String, Result>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Result> eldest) {
+            return size() > MAX_QUERIES;
+        }
+    };
+
+    /**
+     * @return cached or locally narrowed users, null when server has to be asked
+     */
+    synchronized List<GitlabUser> get(String query) {
+        String key = normalize(query);
+        Result exact = results.get(key);
+        if (exact != null) {
+            return exact.users;
+        }
+        Result narrowest = null;
+        String narrowestQuery = null;
+        for (Map.Entry<String, Result> entry : results.entrySet()) {
+            if (entry.getValue().complete && key.startsWith(entry.getKey())
+                    && (narrowestQuery == null || entry.getKey().length() > narrowestQuery.length())) {
+                narrowest = entry.getValue();
+                narrowestQuery = entry.getKey();
+            }
+        }
+        if (narrowest == null) {
+            return null;
+        }
+        List<GitlabUser> users = narrowest.users.stream().filter(user -> matches(user, key)).collect(Collectors.toList());
+        results.put(key, new Result(users, true));
+        return users;
+    }
+
+    /**
+     * @param complete true when server returned all matching users
+     */
+    synchronized void put(String query, List<GitlabUser> users, boolean complete) {
+        results.put(normalize(query), new Result(new ArrayList<>(users), complete));
+    }
+
+    private static boolean matches(GitlabUser user, String query) {
+        return contains(user.getName(), query) || contains(user.getUsername(), query) || contains(user.getEmail(), query);
+    }
+
+    private static boolean contains(String value, String query) {
+        return value != null && value.toLowerCase().contains(query);
+    }
+
+    private static String normalize(String query) {
+        return query == null ? "" : query.trim().toLowerCase();
+    }
+
+    private static class Result {
+        private final List<GitlabUser> users;
+        private final boolean complete;
+
+        Result(List<GitlabUser> users, boolean complete) {
+            this.users = users;
+            this.complete = complete;
+        }
+    }
+}
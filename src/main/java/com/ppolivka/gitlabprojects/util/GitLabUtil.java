@@ -1,11 +1,17 @@
 package com.ppolivka.gitlabprojects.util;
 
 import com.intellij.concurrency.JobScheduler;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProcessCanceledException;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.util.Disposer;
 import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.util.Ref;
 import com.intellij.openapi.util.ThrowableComputable;
@@ -25,12 +31,17 @@ import git4idea.repo.GitRepositoryManager;
 import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.ide.PooledThreadExecutor;
 
 import java.io.IOException;
 import java.net.URI;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -223,6 +234,60 @@ public class GitLabUtil {
         return dataRef.get();
     }
 
+    /**
+     * Non-modal counterpart of {@link #computeValueInModal}, task runs on pooled thread with its own progress indicator
+     * Indicator and returned future are cancelled when parent is disposed, so loading for a dialog stops once it is closed.
+     */
+    @NotNull
+    public static <T> CompletableFuture<T> computeValueInBackground(@NotNull Disposable parent,
+                                                                    @NotNull final ThrowableConvertor<ProgressIndicator, T, IOException> task) {
+        ProgressIndicator indicator = new EmptyProgressIndicator();
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Disposable cancellation = () -> {
+            indicator.cancel();
+            future.cancel(false);
+        };
+        Disposer.register(parent, cancellation);
+        PooledThreadExecutor.INSTANCE.execute(() -> {
+            try {
+                ProgressManager.getInstance().runProcess(() -> {
+                    try {
+                        future.complete(runInterruptable(indicator, () -> task.convert(indicator)));
+                    } catch (Throwable e) {
+                        future.completeExceptionally(e);
+                    }
+                }, indicator);
+            } catch (Throwable e) {
+                // cancelled before the task started
+                future.completeExceptionally(e);
+            } finally {
+                Disposer.dispose(cancellation);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Passes result of background computation to event dispatch thread, nothing is called once parent is disposed
+     * Any modality is used, so result reaches modal dialog that is waiting for it. Cancellation is not reported as error.
+     */
+    public static <T> void whenLoaded(@NotNull Disposable parent,
+                                      @NotNull CompletableFuture<T> future,
+                                      @NotNull Consumer<T> onSuccess,
+                                      @NotNull Consumer<Throwable> onError) {
+        future.whenComplete((value, error) -> ApplicationManager.getApplication().invokeLater(() -> {
+            if (Disposer.isDisposed(parent)) {
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause == null) {
+                onSuccess.accept(value);
+            } else if (!(cause instanceof CancellationException) && !(cause instanceof ProcessCanceledException)) {
+                onError.accept(cause);
+            }
+        }, ModalityState.any()));
+    }
+
     public static <T> T runInterruptable(@NotNull final ProgressIndicator indicator,
                                          @NotNull ThrowableComputable<T, IOException> task) throws IOException {
         ScheduledFuture<?> future = null;
@@ -0,0 +1,70 @@
+package com.ppolivka.gitlabprojects.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.gitlab.api.GitlabAPIException;
+import org.gitlab.api.models.GitlabMergeRequest;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Test of request encoding and of resetting session check when server rejects token on write calls
+ */
+public class ApiFacadeTest {
+
+    private HttpServer server;
+    private ApiFacade api;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/v4/user", exchange -> respond(exchange, HttpURLConnection.HTTP_OK, "{\"id\":1}"));
+        server.createContext("/api/v4/projects", exchange -> respond(exchange, HttpURLConnection.HTTP_UNAUTHORIZED, "{\"message\":\"401 Unauthorized\"}"));
+        server.start();
+        api = new ApiFacade("http://localhost:" + server.getAddress().getPort(), "token");
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void rejectedCommentResetsSessionCheck() throws IOException {
+        api.getSession();
+        Assert.assertNotEquals(0, api.getValidatedAt());
+
+        GitlabMergeRequest mergeRequest = new GitlabMergeRequest();
+        mergeRequest.setProjectId(7);
+        mergeRequest.setIid(3);
+        try {
+            api.addComment(mergeRequest, "looks good");
+            Assert.fail("rejected token was not reported");
+        } catch (GitlabAPIException e) {
+            Assert.assertEquals(HttpURLConnection.HTTP_UNAUTHORIZED, e.getResponseCode());
+        }
+        Assert.assertEquals(0, api.getValidatedAt());
+    }
+
+    @Test
+    public void filePathIsEncodedAsPathSegment() throws IOException {
+        Assert.assertEquals("docs%2Fmy%20notes%2B1.md", ApiFacade.encodePathSegment("docs/my notes+1.md"));
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.ppolivka.gitlabprojects.api;
+
+import org.gitlab.api.GitlabAPI;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Test for lazy following of keyset paginated collections
+ */
+public class PageCursorTest {
+
+    private static final String TAIL_URL = "/projects?membership=true&pagination=keyset&order_by=id&sort=asc&per_page=2";
+
+    @Test
+    public void allPagesAreFollowed() {
+        DummyRequestor requestor = new DummyRequestor(3);
+        List<Integer> result = stream(requestor).collect(Collectors.toList());
+        Assert.assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6), result);
+        Assert.assertEquals(3, requestor.requests.size());
+        Assert.assertEquals("/projects?id_after=2&membership=true&pagination=keyset&order_by=id&sort=asc&per_page=2", requestor.requests.get(1));
+    }
+
+    @Test
+    public void stopsAtFirstHit() {
+        DummyRequestor requestor = new DummyRequestor(5);
+        Optional<Integer> match = stream(requestor).filter(id -> id == 3).findFirst();
+        Assert.assertEquals(Integer.valueOf(3), match.get());
+        Assert.assertEquals(2, requestor.requests.size());
+    }
+
+    @Test
+    public void linkIsConvertedToTailUrl() {
+        Assert.assertEquals("/projects?id_after=2", PageCursor.toTailUrl("https://gitlab.com/api/v4/projects?id_after=2"));
+        Assert.assertEquals("/projects?id_after=2", PageCursor.toTailUrl("https://example.com/gitlab/api/v4/projects?id_after=2"));
+    }
+
+    private static Stream<Integer> stream(DummyRequestor requestor) {
+        return StreamSupport.stream(new PageCursor<>(requestor, TAIL_URL, Integer[].class), false);
+    }
+
+    /**
+     * Every page holds two ids, next page is announced in Link header the same way GitLab does for keyset pagination
+     */
+    private static class DummyRequestor extends ApiRequestor {
+        private final int totalPages;
+        private final List<String> requests = new ArrayList<>();
+
+        DummyRequestor(int totalPages) {
+            super(GitlabAPI.connect("http://localhost", "token"), "token");
+            this.totalPages = totalPages;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        <T> Response<T> fetch(String tailUrl, Class<T> type) throws IOException {
+            requests.add(tailUrl);
+            int lastId = tailUrl.contains("id_after=") ? Integer.parseInt(tailUrl.replaceAll(".*id_after=(\\d+).*", "$1")) : 0;
+            Map<String, List<String>> headers = new HashMap<>();
+            if (lastId + 2 < totalPages * 2) {
+                String next = "http://localhost/api/v4/projects?id_after=" + (lastId + 2) + "&membership=true&pagination=keyset&order_by=id&sort=asc&per_page=2";
+                headers.put("Link", Collections.singletonList("<" + next + ">; rel=\"next\""));
+            }
+            Integer[] body = new Integer[]{lastId + 1, lastId + 2};
+            return new Response<>((T) body, headers);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.ppolivka.gitlabprojects.api;
+
+import org.gitlab.api.GitlabAPI;
+import org.gitlab.api.GitlabAPIException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Test for merging concurrently fetched pages
+ */
+public class PageFetcherTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(3);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void pagesAreMergedInOrder() throws IOException {
+        DummyRequestor requestor = new DummyRequestor(7, true);
+        PageFetcher fetcher = new PageFetcher(requestor, executor);
+        fetcher.setParallelism(3);
+
+        List<Integer> result = fetcher.getAll("/projects?membership=true", Integer[].class);
+
+        Assert.assertEquals(expected(7), result);
+        Assert.assertEquals(7, requestor.requests.size());
+    }
+
+    @Test
+    public void nextPageIsFollowedWithoutTotal() throws IOException {
+        DummyRequestor requestor = new DummyRequestor(4, false);
+        PageFetcher fetcher = new PageFetcher(requestor, executor);
+
+        Assert.assertEquals(expected(4), fetcher.getAll("/namespaces", Integer[].class));
+    }
+
+    @Test
+    public void singlePageIsFetchedOnce() throws IOException {
+        DummyRequestor requestor = new DummyRequestor(1, true);
+        PageFetcher fetcher = new PageFetcher(requestor, executor);
+
+        Assert.assertEquals(expected(1), fetcher.getAll("/namespaces", Integer[].class));
+        Assert.assertEquals(1, requestor.requests.size());
+    }
+
+    @Test(expected = GitlabAPIException.class)
+    public void failedPageFailsCollection() throws IOException {
+        DummyRequestor requestor = new DummyRequestor(5, true);
+        requestor.failingPage = 4;
+        new PageFetcher(requestor, executor).getAll("/namespaces", Integer[].class);
+    }
+
+    @Test
+    public void pageUrlKeepsQuery() {
+        Assert.assertEquals("/namespaces?page=2&per_page=100", PageFetcher.pageUrl("/namespaces", 2));
+        Assert.assertEquals("/projects?membership=true&page=1&per_page=100", PageFetcher.pageUrl("/projects?membership=true", 1));
+    }
+
+    private static List<Integer> expected(int pages) {
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < pages * 2; i++) {
+            expected.add(i);
+        }
+        return expected;
+    }
+
+    /**
+     * Every page holds two items, items are numbered across pages
+     */
+    private static class DummyRequestor extends ApiRequestor {
+        private final int totalPages;
+        private final boolean sendTotal;
+        private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+        private int failingPage = -1;
+
+        DummyRequestor(int totalPages, boolean sendTotal) {
+            super(GitlabAPI.connect("http://localhost", "token"), "token");
+            this.totalPages = totalPages;
+            this.sendTotal = sendTotal;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        <T> Response<T> fetch(String tailUrl, Class<T> type) throws IOException {
+            requests.add(tailUrl);
+            int page = Integer.parseInt(tailUrl.replaceAll(".*[?&]page=(\\d+).*", "$1"));
+            if (page == failingPage) {
+                throw new GitlabAPIException("error", 500, new IOException());
+            }
+            Map<String, List<String>> headers = new HashMap<>();
+            if (sendTotal) {
+                headers.put("X-Total-Pages", Collections.singletonList(String.valueOf(totalPages)));
+            }
+            headers.put("X-Next-Page", Collections.singletonList(page < totalPages ? String.valueOf(page + 1) : ""));
+            Integer[] body = new Integer[]{(page - 1) * 2, (page - 1) * 2 + 1};
+            return new Response<>((T) body, headers);
+        }
+    }
+}
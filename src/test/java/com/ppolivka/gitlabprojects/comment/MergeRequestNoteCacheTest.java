@@ -0,0 +1,102 @@
+package com.ppolivka.gitlabprojects.comment;
+
+import com.ppolivka.gitlabprojects.util.CountingIterator;
+import org.gitlab.api.models.GitlabMergeRequest;
+import org.gitlab.api.models.GitlabNote;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Test of incremental note caching
+ */
+public class MergeRequestNoteCacheTest {
+
+    private static final String SERVER = "https://gitlab.example.com";
+
+    private final MergeRequestNoteCache cache = new MergeRequestNoteCache(2);
+
+    @Test
+    public void onlyNotesNewerThanCachedAreConsumed() {
+        GitlabMergeRequest mergeRequest = mergeRequest(1);
+        cache.update(SERVER, mergeRequest, newestFirst(3, 2, 1));
+
+        CountingIterator<GitlabNote> newestFirst = newestFirst(5, 4, 3, 2, 1);
+        List<GitlabNote> notes = cache.update(SERVER, mergeRequest, newestFirst);
+
+        Assert.assertEquals(3, newestFirst.getConsumed());
+        Assert.assertEquals(Arrays.asList(1, 2, 3, 4, 5), ids(notes));
+        Assert.assertEquals(Integer.valueOf(5), cache.lastSeenId(SERVER, mergeRequest));
+    }
+
+    @Test
+    public void addedNoteIsNotDuplicatedByNextUpdate() {
+        GitlabMergeRequest mergeRequest = mergeRequest(1);
+        cache.update(SERVER, mergeRequest, newestFirst(2, 1));
+        Assert.assertEquals(Arrays.asList(1, 2, 3), ids(cache.add(SERVER, mergeRequest, note(3))));
+
+        Assert.assertEquals(Arrays.asList(1, 2, 3), ids(cache.update(SERVER, mergeRequest, newestFirst(3, 2, 1))));
+    }
+
+    @Test
+    public void leastRecentlyUsedMergeRequestIsEvicted() {
+        cache.update(SERVER, mergeRequest(1), newestFirst(1));
+        cache.update(SERVER, mergeRequest(2), newestFirst(2));
+        cache.lastSeenId(SERVER, mergeRequest(1));
+        cache.update(SERVER, mergeRequest(3), newestFirst(3));
+
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(Integer.valueOf(1), cache.lastSeenId(SERVER, mergeRequest(1)));
+        Assert.assertNull(cache.lastSeenId(SERVER, mergeRequest(2)));
+    }
+
+    @Test
+    public void mergeRequestsWithSameIdOnDifferentServersAreCachedSeparately() {
+        cache.update(SERVER, mergeRequest(1), newestFirst(2, 1));
+        cache.update("https://other.example.com", mergeRequest(1), newestFirst(7));
+
+        Assert.assertEquals(Arrays.asList(1, 2), ids(cache.getCached(SERVER, mergeRequest(1))));
+        Assert.assertEquals(Arrays.asList(7), ids(cache.getCached("https://other.example.com", mergeRequest(1))));
+    }
+
+    @Test
+    public void replaceDropsDeletedAndUpdatesEditedNotes() {
+        GitlabMergeRequest mergeRequest = mergeRequest(1);
+        cache.update(SERVER, mergeRequest, newestFirst(3, 2, 1));
+        GitlabNote edited = note(3);
+        edited.setBody("edited");
+
+        List<GitlabNote> notes = cache.replace(SERVER, mergeRequest, CountingIterator.of(edited, note(1)));
+
+        Assert.assertEquals(Arrays.asList(1, 3), ids(notes));
+        Assert.assertEquals("edited", cache.getCached(SERVER, mergeRequest).get(1).getBody());
+    }
+
+    private static CountingIterator<GitlabNote> newestFirst(int... ids) {
+        List<GitlabNote> notes = new ArrayList<>();
+        for (int id : ids) {
+            notes.add(note(id));
+        }
+        return new CountingIterator<>(notes);
+    }
+
+    private static List<Integer> ids(List<GitlabNote> notes) {
+        return notes.stream().map(GitlabNote::getId).collect(Collectors.toList());
+    }
+
+    private static GitlabNote note(int id) {
+        GitlabNote note = new GitlabNote();
+        note.setId(id);
+        return note;
+    }
+
+    private static GitlabMergeRequest mergeRequest(int id) {
+        GitlabMergeRequest mergeRequest = new GitlabMergeRequest();
+        mergeRequest.setId(id);
+        return mergeRequest;
+    }
+}
@@ -0,0 +1,148 @@
+package com.ppolivka.gitlabprojects.component;
+
+import com.ppolivka.gitlabprojects.merge.request.SearchableUser;
+import org.gitlab.api.models.GitlabUser;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.swing.*;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Test that user search does not block event dispatch thread while typing
+ */
+public class SearchBoxModelTest {
+
+    private ExecutorService executor;
+    private BlockingSearchable searchable;
+    private SearchBoxModel model;
+    private List<String> shownResults;
+
+    @Before
+    public void setUp() throws Exception {
+        executor = Executors.newSingleThreadExecutor();
+        searchable = new BlockingSearchable();
+        shownResults = Collections.synchronizedList(new ArrayList<>());
+        SwingUtilities.invokeAndWait(() -> {
+            JComboBox comboBox = new JComboBox();
+            model = new SearchBoxModel(comboBox, searchable, Collections.emptyList(), executor);
+            comboBox.setModel(model);
+            model.addListDataListener(new ListDataListener() {
+                @Override
+                public void intervalAdded(ListDataEvent e) {
+                }
+
+                @Override
+                public void intervalRemoved(ListDataEvent e) {
+                }
+
+                @Override
+                public void contentsChanged(ListDataEvent e) {
+                    for (int i = 0; i < model.getSize(); i++) {
+                        shownResults.add(model.getElementAt(i).toString());
+                    }
+                }
+            });
+        });
+    }
+
+    @After
+    public void tearDown() {
+        searchable.release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void typingDoesNotBlockEventDispatchThread() throws Exception {
+        for (String query : Arrays.asList("j", "jo", "joh", "john")) {
+            SwingUtilities.invokeAndWait(() -> model.startSearch(query));
+        }
+        searchable.started.await();
+
+        Assert.assertFalse(searchable.searchedOnEventDispatchThread);
+        assertShown("john", "loading...");
+
+        searchable.release.countDown();
+        flush();
+
+        assertShown("john", "john-user");
+    }
+
+    @Test
+    public void onlyLatestResultIsShown() throws Exception {
+        for (String query : Arrays.asList("j", "jo", "john")) {
+            SwingUtilities.invokeAndWait(() -> model.startSearch(query));
+        }
+        searchable.release.countDown();
+        flush();
+
+        Assert.assertFalse(shownResults.contains("j-user"));
+        Assert.assertFalse(shownResults.contains("jo-user"));
+        assertShown("john", "john-user");
+    }
+
+    @Test
+    public void failedSearchReplacesLoadingRow() throws Exception {
+        searchable.failing = true;
+        searchable.release.countDown();
+        SwingUtilities.invokeAndWait(() -> model.startSearch("john"));
+        flush();
+
+        assertShown("john", "search failed");
+    }
+
+    /**
+     * Waits until all submitted searches finished and their results were applied on event dispatch thread
+     */
+    private void flush() throws Exception {
+        executor.submit(() -> {
+        }).get();
+        SwingUtilities.invokeAndWait(() -> {
+        });
+    }
+
+    private void assertShown(String... rows) throws Exception {
+        List<String> shown = new ArrayList<>();
+        SwingUtilities.invokeAndWait(() -> {
+            for (int i = 0; i < model.getSize(); i++) {
+                shown.add(model.getElementAt(i).toString());
+            }
+        });
+        Assert.assertEquals(Arrays.asList(rows), shown);
+    }
+
+    /**
+     * Searches wait until released, cancelled search still returns its stale result
+     */
+    private static class BlockingSearchable implements Searchable<SearchableUser, String> {
+
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile boolean searchedOnEventDispatchThread;
+        private volatile boolean failing;
+
+        @Override
+        public Collection<SearchableUser> search(String toSearch) {
+            searchedOnEventDispatchThread |= SwingUtilities.isEventDispatchThread();
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failing) {
+                throw new IllegalStateException("server unavailable");
+            }
+            GitlabUser user = new GitlabUser();
+            user.setName(toSearch + "-user");
+            return Collections.singletonList(new SearchableUser(user));
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.ppolivka.gitlabprojects.configuration;
+
+import com.ppolivka.gitlabprojects.api.ApiFacade;
+import com.ppolivka.gitlabprojects.api.dto.NamespaceDto;
+import com.ppolivka.gitlabprojects.api.dto.ProjectDto;
+import com.ppolivka.gitlabprojects.api.dto.SimpleProjectDto;
+import com.ppolivka.gitlabprojects.dto.GitlabServer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Test of merging project deltas into catalog
+ */
+public class ProjectCatalogTest {
+
+    @Test
+    public void repeatedDeltasKeepOneEntryPerProject() {
+        List<ProjectDto> catalog = ProjectCatalog.merge(Collections.emptyList(), Arrays.asList(project(1, "first"), project(2, "second")));
+        for (int i = 0; i < 10; i++) {
+            catalog = ProjectCatalog.merge(catalog, Arrays.asList(project(2, "second"), project(1, "first")));
+        }
+        Assert.assertEquals(Arrays.asList(1, 2), ids(catalog));
+    }
+
+    @Test
+    public void changedProjectReplacesCachedOne() {
+        List<ProjectDto> catalog = ProjectCatalog.merge(Collections.emptyList(), Arrays.asList(project(1, "first"), project(2, "second")));
+        catalog = ProjectCatalog.merge(catalog, Collections.singletonList(project(2, "renamed")));
+
+        Assert.assertEquals(Arrays.asList(1, 2), ids(catalog));
+        Assert.assertEquals("renamed", catalog.get(1).getName());
+    }
+
+    @Test
+    public void projectArchivedInDeltaIsRemoved() {
+        List<ProjectDto> catalog = ProjectCatalog.merge(Collections.emptyList(), Arrays.asList(project(1, "first"), project(2, "second")));
+        SimpleProjectDto archived = project(1, "first");
+        archived.setArchived(true);
+        catalog = ProjectCatalog.merge(catalog, Arrays.asList(archived, project(3, "third")));
+
+        Assert.assertEquals(Arrays.asList(2, 3), ids(catalog));
+    }
+
+    @Test
+    public void repeatedFullAndDeltaSyncsKeepConstantSize() throws IOException {
+        AtomicLong now = new AtomicLong(TimeUnit.DAYS.toMillis(100));
+        ProjectCatalog catalog = new ProjectCatalog(api -> new FixedProjectsApi(new AtomicReference<>(() -> {})), now::get);
+        GitlabServer server = new GitlabServer();
+        server.setApiUrl("https://gitlab.com");
+
+        catalog.sync(server);
+        long bytes = catalog.getEstimatedBytes();
+        for (int i = 0; i < 10; i++) {
+            now.addAndGet(TimeUnit.HOURS.toMillis(5));
+            catalog.sync(server);
+        }
+
+        Assert.assertEquals(3, catalog.size());
+        Assert.assertEquals(bytes, catalog.getEstimatedBytes());
+        Assert.assertTrue(bytes > 0);
+    }
+
+    @Test
+    public void deltaSyncOverlappingRemovalIsNotStored() throws IOException {
+        AtomicLong now = new AtomicLong(TimeUnit.DAYS.toMillis(100));
+        GitlabServer server = new GitlabServer();
+        server.setApiUrl("https://gitlab.com");
+        AtomicReference<Runnable> duringListing = new AtomicReference<>(() -> {});
+        ProjectCatalog catalog = new ProjectCatalog(api -> new FixedProjectsApi(duringListing), now::get);
+        catalog.sync(server);
+
+        duringListing.set(() -> catalog.remove(server));
+        now.addAndGet(TimeUnit.HOURS.toMillis(5));
+
+        Assert.assertTrue(catalog.sync(server).isEmpty());
+        Assert.assertFalse(catalog.isCached(server));
+    }
+
+    @Test
+    public void savedStateIsNotChangedBySync() throws IOException {
+        AtomicLong now = new AtomicLong(TimeUnit.DAYS.toMillis(100));
+        GitlabServer server = new GitlabServer();
+        server.setApiUrl("https://gitlab.com");
+        ProjectCatalog catalog = new ProjectCatalog(api -> new FixedProjectsApi(new AtomicReference<>(() -> {})), now::get);
+        catalog.sync(server);
+        ProjectCatalog.CatalogState state = catalog.getState();
+        long lastSync = state.servers.get(server.getApiUrl()).lastSync;
+
+        now.addAndGet(TimeUnit.HOURS.toMillis(5));
+        catalog.sync(server);
+        catalog.remove(server);
+
+        Assert.assertEquals(lastSync, state.servers.get(server.getApiUrl()).lastSync);
+        Assert.assertEquals(3, state.servers.get(server.getApiUrl()).projects.size());
+    }
+
+    private static List<Integer> ids(List<ProjectDto> projects) {
+        return projects.stream().map(ProjectDto::getId).collect(Collectors.toList());
+    }
+
+    private static SimpleProjectDto project(Integer id, String name) {
+        NamespaceDto namespace = new NamespaceDto();
+        namespace.setName("Polivka");
+        SimpleProjectDto project = new SimpleProjectDto();
+        project.setId(id);
+        project.setName(name);
+        project.setNamespace(namespace);
+        project.setHttpUrl("https://gitlab.com/Polivka/" + name + ".git");
+        project.setSshUrl("git@gitlab.com:Polivka/" + name + ".git");
+        return project;
+    }
+
+    /**
+     * Returns the same projects for full listing and for activity delta, runs given action while listing
+     */
+    private static class FixedProjectsApi extends ApiFacade {
+
+        private final AtomicReference<Runnable> duringListing;
+
+        FixedProjectsApi(AtomicReference<Runnable> duringListing) {
+            this.duringListing = duringListing;
+        }
+
+        @Override
+        public List<SimpleProjectDto> getMembershipProjects(Date lastActivityAfter) {
+            duringListing.get().run();
+            return Arrays.asList(project(1, "first"), project(2, "second"), project(3, "third"));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.ppolivka.gitlabprojects.merge.dashboard;
+
+import com.ppolivka.gitlabprojects.api.dto.MergeRequestDto;
+import org.gitlab.api.models.GitlabMergeRequest;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Test of merging scoped merge request listings into dashboard rows
+ */
+public class MergeRequestDashboardTest {
+
+    private static final String SERVER = "https://gitlab.example.com";
+
+    @Test
+    public void mergeRequestInBothScopesIsListedOnce() {
+        List<MergeRequestDto> mergeRequests = MergeRequestDashboard.merge(SERVER,
+                Arrays.asList(mergeRequest(1, 100), mergeRequest(2, 300)),
+                Arrays.asList(mergeRequest(2, 300), mergeRequest(3, 200)));
+
+        Assert.assertEquals(3, mergeRequests.size());
+        Assert.assertEquals(Integer.valueOf(2), mergeRequests.get(0).getId());
+        Assert.assertTrue(mergeRequests.get(0).isAssignedToMe());
+        Assert.assertTrue(mergeRequests.get(0).isCreatedByMe());
+        Assert.assertEquals(Integer.valueOf(3), mergeRequests.get(1).getId());
+        Assert.assertFalse(mergeRequests.get(1).isAssignedToMe());
+        Assert.assertEquals(Integer.valueOf(1), mergeRequests.get(2).getId());
+        Assert.assertFalse(mergeRequests.get(2).isCreatedByMe());
+        Assert.assertEquals(SERVER, mergeRequests.get(2).getServerUrl());
+    }
+
+    @Test
+    public void projectPathIsTakenFromWebUrl() {
+        GitlabMergeRequest mergeRequest = mergeRequest(1, 0);
+        Assert.assertEquals("group/project", MergeRequestDashboard.projectPath(mergeRequest));
+
+        mergeRequest.setWebUrl(SERVER + "/group/subgroup/project/-/merge_requests/5");
+        Assert.assertEquals("group/subgroup/project", MergeRequestDashboard.projectPath(mergeRequest));
+
+        mergeRequest.setWebUrl(null);
+        Assert.assertEquals("#7", MergeRequestDashboard.projectPath(mergeRequest));
+    }
+
+    @Test
+    public void emptyScopesGiveEmptyDashboard() {
+        Assert.assertTrue(MergeRequestDashboard.merge(SERVER, Collections.emptyList(), Collections.emptyList()).isEmpty());
+    }
+
+    private static GitlabMergeRequest mergeRequest(int id, long updatedAt) {
+        GitlabMergeRequest mergeRequest = new GitlabMergeRequest();
+        mergeRequest.setId(id);
+        mergeRequest.setIid(id);
+        mergeRequest.setProjectId(7);
+        mergeRequest.setWebUrl(SERVER + "/group/project/merge_requests/" + id);
+        mergeRequest.setUpdatedAt(new Date(updatedAt));
+        return mergeRequest;
+    }
+}
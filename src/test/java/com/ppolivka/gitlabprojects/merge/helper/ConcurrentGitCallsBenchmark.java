@@ -0,0 +1,167 @@
+package com.ppolivka.gitlabprojects.merge.helper;
+
+import com.intellij.openapi.util.ThrowableComputable;
+import com.intellij.openapi.vcs.VcsException;
+import org.jetbrains.annotations.NotNull;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/**
+ * Benchmark of git commands issued for diff info (history of both sides and diff), run one by one and as concurrent git calls
+ * Skipped unless enabled, run with: ./gradlew test --tests '*ConcurrentGitCallsBenchmark' -Dgitlab.benchmark=true
+ * Size of generated repository is set by gitlab.benchmark.files and gitlab.benchmark.commits.
+ */
+public class ConcurrentGitCallsBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    private static final List<List<String>> COMMANDS = Arrays.asList(
+            Arrays.asList("git", "log", "--name-status", "..master"),
+            Arrays.asList("git", "log", "--name-status", "master.."),
+            Arrays.asList("git", "diff", "-M", "--name-status", "master", "feature"));
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(COMMANDS.size());
+    private File repository;
+
+    @Before
+    public void setUp() throws Exception {
+        Assume.assumeTrue("benchmark is enabled by -Dgitlab.benchmark=true", Boolean.getBoolean("gitlab.benchmark"));
+        Assume.assumeTrue("git commands can overlap only on more cores", Runtime.getRuntime().availableProcessors() > 1);
+        repository = Files.createTempDirectory("diff-benchmark").toFile();
+        generateRepository(repository, Integer.getInteger("gitlab.benchmark.files", 3000), Integer.getInteger("gitlab.benchmark.commits", 400));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        executor.shutdownNow();
+        if (repository != null) {
+            try (Stream<Path> paths = Files.walk(repository.toPath())) {
+                paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    @Test
+    public void concurrentCallsAreFaster() throws Exception {
+        long sequential = Long.MAX_VALUE;
+        long concurrent = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (List<String> command : COMMANDS) {
+                git(repository, command);
+            }
+            sequential = Math.min(sequential, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            ConcurrentGitCalls calls = new ConcurrentGitCalls(executor, new DirectRunner());
+            for (List<String> command : COMMANDS) {
+                calls.submit(() -> git(repository, command));
+            }
+            calls.await(() -> false);
+            concurrent = Math.min(concurrent, System.nanoTime() - start);
+        }
+        System.out.println("sequential: " + sequential / 1_000_000 + " ms, concurrent: " + concurrent / 1_000_000 + " ms");
+        Assert.assertTrue("concurrent calls are not faster", concurrent < sequential);
+    }
+
+    /**
+     * Master and feature branch diverge from common base, each branch changes its own slice of files in every commit
+     */
+    private static void generateRepository(File directory, int files, int commits) throws Exception {
+        git(directory, Arrays.asList("git", "init", "-q"));
+        git(directory, Arrays.asList("git", "config", "user.email", "benchmark@example.com"));
+        git(directory, Arrays.asList("git", "config", "user.name", "Benchmark"));
+        git(directory, Arrays.asList("git", "checkout", "-q", "-b", "master"));
+        for (int i = 0; i < files; i++) {
+            writeFile(directory, i, "base");
+        }
+        commitAll(directory, "base");
+        git(directory, Arrays.asList("git", "branch", "feature"));
+
+        commitBranch(directory, "master", files, commits, 0);
+        commitBranch(directory, "feature", files, commits, 1);
+    }
+
+    private static void commitBranch(File directory, String branch, int files, int commits, int offset) throws Exception {
+        git(directory, Arrays.asList("git", "checkout", "-q", branch));
+        for (int commit = 0; commit < commits; commit++) {
+            for (int i = offset; i < files; i += 20) {
+                writeFile(directory, (i + commit * 2) % files, branch + " " + commit);
+            }
+            commitAll(directory, branch + " " + commit);
+        }
+    }
+
+    private static void writeFile(File directory, int index, String content) throws IOException {
+        File file = new File(directory, "module" + index % 50 + "/File" + index + ".txt");
+        file.getParentFile().mkdirs();
+        StringBuilder text = new StringBuilder();
+        for (int line = 0; line < 50; line++) {
+            text.append(content).append(' ').append(index).append(' ').append(line).append('\n');
+        }
+        Files.write(file.toPath(), text.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void commitAll(File directory, String message) throws VcsException {
+        git(directory, Arrays.asList("git", "add", "-A"));
+        git(directory, Arrays.asList("git", "commit", "-q", "-m", message));
+    }
+
+    private static String git(File directory, List<String> command) throws VcsException {
+        try {
+            Process process = new ProcessBuilder(command).directory(directory).redirectErrorStream(true).start();
+            String output = read(process.getInputStream());
+            if (process.waitFor() != 0) {
+                throw new VcsException(command + " failed: " + output);
+            }
+            return output;
+        } catch (IOException e) {
+            throw new VcsException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new VcsException(e);
+        }
+    }
+
+    private static String read(InputStream stream) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = stream.read(buffer)) != -1) {
+            output.write(buffer, 0, read);
+        }
+        return output.toString(StandardCharsets.UTF_8.name());
+    }
+
+    /**
+     * Runs commands directly, benchmark is never cancelled
+     */
+    private static class DirectRunner implements ConcurrentGitCalls.GitRunner {
+
+        @Override
+        public <T> T run(@NotNull ThrowableComputable<T, VcsException> call) throws VcsException {
+            return call.compute();
+        }
+
+        @Override
+        public void cancel() {
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.ppolivka.gitlabprojects.merge.helper;
+
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.util.ThrowableComputable;
+import com.intellij.openapi.vcs.VcsException;
+import org.jetbrains.annotations.NotNull;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.*;
+
+/**
+ * Test of concurrent git calls and their cancellation
+ */
+public class ConcurrentGitCallsTest {
+
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(3);
+    private final FakeGitRunner runner = new FakeGitRunner();
+    private final ConcurrentGitCalls calls = new ConcurrentGitCalls(executor, runner);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void callsOverlap() throws Exception {
+        CountDownLatch running = new CountDownLatch(3);
+        CompletableFuture<Boolean> first = calls.submit(() -> awaitOthers(running));
+        CompletableFuture<Boolean> second = calls.submit(() -> awaitOthers(running));
+        CompletableFuture<Boolean> third = calls.submit(() -> awaitOthers(running));
+
+        calls.await(() -> false);
+
+        Assert.assertTrue(first.join() && second.join() && third.join());
+        Assert.assertEquals(1, runner.cancelled.getCount());
+    }
+
+    @Test
+    public void firstFailureCancelsOtherCalls() throws Exception {
+        CompletableFuture<String> blocked = calls.submit(runner::untilCancelled);
+        calls.submit(() -> {
+            throw new VcsException("bad revision");
+        });
+
+        try {
+            calls.await(() -> false);
+            Assert.fail("failure was not reported");
+        } catch (VcsException e) {
+            Assert.assertEquals("bad revision", e.getMessage());
+        }
+        Assert.assertTrue(runner.cancelled.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        Assert.assertEquals("cancelled", blocked.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void cancelledCallerCancelsCalls() throws Exception {
+        CompletableFuture<String> blocked = calls.submit(runner::untilCancelled);
+
+        try {
+            calls.await(() -> true);
+            Assert.fail("cancellation was not reported");
+        } catch (ProcessCanceledException e) {
+            // expected
+        }
+        Assert.assertEquals("cancelled", blocked.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Finishes only when all three calls run at the same time
+     */
+    private static boolean awaitOthers(CountDownLatch running) throws VcsException {
+        running.countDown();
+        try {
+            return running.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new VcsException(e);
+        }
+    }
+
+    /**
+     * Runs calls directly, cancellation releases calls that wait for it, like cancelled progress stops git handlers
+     */
+    private static class FakeGitRunner implements ConcurrentGitCalls.GitRunner {
+
+        private final CountDownLatch cancelled = new CountDownLatch(1);
+
+        @Override
+        public <T> T run(@NotNull ThrowableComputable<T, VcsException> call) throws VcsException {
+            return call.compute();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled.countDown();
+        }
+
+        String untilCancelled() throws VcsException {
+            try {
+                cancelled.await();
+                return "cancelled";
+            } catch (InterruptedException e) {
+                throw new VcsException(e);
+            }
+        }
+    }
+}
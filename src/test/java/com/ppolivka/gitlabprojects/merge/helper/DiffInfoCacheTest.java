@@ -0,0 +1,57 @@
+package com.ppolivka.gitlabprojects.merge.helper;
+
+import com.ppolivka.gitlabprojects.merge.info.DiffInfo;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test of diff info cache eviction
+ */
+public class DiffInfoCacheTest {
+
+    private final DiffInfoCache cache = new DiffInfoCache(100);
+
+    @Test
+    public void diffIsFoundByRootAndHashes() {
+        DiffInfo diffInfo = diffInfo();
+        cache.put("/repo", "aaa", "bbb", diffInfo, 10);
+
+        Assert.assertSame(diffInfo, cache.get("/repo", "aaa", "bbb"));
+        Assert.assertNull(cache.get("/repo", "bbb", "aaa"));
+        Assert.assertNull(cache.get("/other", "aaa", "bbb"));
+    }
+
+    @Test
+    public void leastRecentlyUsedIsEvictedWhenSizeIsExceeded() {
+        cache.put("/repo", "a", "x", diffInfo(), 40);
+        cache.put("/repo", "b", "x", diffInfo(), 40);
+        cache.get("/repo", "a", "x");
+        cache.put("/repo", "c", "x", diffInfo(), 40);
+
+        Assert.assertNotNull(cache.get("/repo", "a", "x"));
+        Assert.assertNull(cache.get("/repo", "b", "x"));
+        Assert.assertNotNull(cache.get("/repo", "c", "x"));
+        Assert.assertEquals(80, cache.size());
+    }
+
+    @Test
+    public void diffLargerThanLimitIsNotCached() {
+        cache.put("/repo", "a", "x", diffInfo(), 40);
+        cache.put("/repo", "b", "x", diffInfo(), 101);
+
+        Assert.assertNull(cache.get("/repo", "b", "x"));
+        Assert.assertNotNull(cache.get("/repo", "a", "x"));
+    }
+
+    @Test
+    public void replacedDiffIsNotCountedTwice() {
+        cache.put("/repo", "a", "x", diffInfo(), 40);
+        cache.put("/repo", "a", "x", diffInfo(), 30);
+
+        Assert.assertEquals(30, cache.size());
+    }
+
+    private static DiffInfo diffInfo() {
+        return new DiffInfo(null, "feature", "origin/master");
+    }
+}
@@ -0,0 +1,126 @@
+package com.ppolivka.gitlabprojects.merge.helper;
+
+import com.ppolivka.gitlabprojects.merge.info.BranchInfo;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Test of fetch sharing and freshness window
+ */
+public class GitFetchCoordinatorTest {
+
+    private static final long WINDOW = 1000;
+
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger fetchCount = new AtomicInteger();
+    private GitFetchCoordinator coordinator;
+
+    @Before
+    public void setUp() {
+        coordinator = new GitFetchCoordinator(null, Runnable::run, now::get);
+    }
+
+    @Test
+    public void concurrentCallersShareRunningFetch() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            coordinator = new GitFetchCoordinator(null, executor, now::get);
+            CountDownLatch release = new CountDownLatch(1);
+            Supplier<Boolean> blockingFetch = () -> {
+                fetchCount.incrementAndGet();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            };
+
+            CompletableFuture<Boolean> first = coordinator.share("origin/master", WINDOW, blockingFetch);
+            CompletableFuture<Boolean> second = coordinator.share("origin/master", WINDOW, blockingFetch);
+            release.countDown();
+
+            Assert.assertSame(first, second);
+            Assert.assertTrue(second.get());
+            Assert.assertEquals(1, fetchCount.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void fetchIsReusedWithinWindow() {
+        coordinator.share("origin/master", WINDOW, this::successfulFetch);
+        now.addAndGet(WINDOW - 1);
+        coordinator.share("origin/master", WINDOW, this::successfulFetch);
+        Assert.assertEquals(1, fetchCount.get());
+
+        now.addAndGet(1);
+        coordinator.share("origin/master", WINDOW, this::successfulFetch);
+        Assert.assertEquals(2, fetchCount.get());
+    }
+
+    @Test
+    public void branchesAreFetchedSeparately() {
+        coordinator.share("origin/master", WINDOW, this::successfulFetch);
+        coordinator.share("origin/develop", WINDOW, this::successfulFetch);
+        Assert.assertEquals(2, fetchCount.get());
+    }
+
+    @Test
+    public void failedFetchIsNotReused() {
+        coordinator.share("origin/master", WINDOW, () -> {
+            fetchCount.incrementAndGet();
+            return false;
+        });
+        coordinator.share("origin/master", WINDOW, this::successfulFetch);
+        Assert.assertEquals(2, fetchCount.get());
+    }
+
+    @Test
+    public void everyBranchIsFetchedAndSharedSeparately() throws Exception {
+        List<String> fetched = new ArrayList<>();
+        BranchInfo target = new BranchInfo("master", "origin", true);
+        BranchInfo source = new BranchInfo("feature", "origin", true);
+
+        CompletableFuture<Boolean> both = coordinator.shareAll("/repo", WINDOW, Arrays.asList(target, source), branch -> {
+            fetched.add(branch.getFullRemoteName());
+            return true;
+        });
+        coordinator.shareAll("/repo", WINDOW, Collections.singletonList(source), branch -> {
+            fetched.add(branch.getFullRemoteName());
+            return true;
+        });
+
+        Assert.assertTrue(both.get());
+        Assert.assertEquals(Arrays.asList("origin/master", "origin/feature"), fetched);
+    }
+
+    @Test
+    public void failedSourceFetchFailsBoth() throws Exception {
+        BranchInfo target = new BranchInfo("master", "origin", true);
+        BranchInfo source = new BranchInfo("feature", "origin", true);
+
+        CompletableFuture<Boolean> both = coordinator.shareAll("/repo", WINDOW, Arrays.asList(target, source), branch -> branch == target);
+
+        Assert.assertFalse(both.get());
+    }
+
+    private Boolean successfulFetch() {
+        fetchCount.incrementAndGet();
+        return true;
+    }
+}
@@ -19,6 +19,7 @@ import org.junit.Test;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.stream.Stream;
 
 import static java.util.Collections.emptyList;
 
@@ -60,6 +61,65 @@ public class GitLabProjectMatcherTest {
         testResolving("https://gitlab.com/Polivka/kugkg", "https://gitlab.com/Polivka/kugkg.git", false, true);
     }
 
+    @Test
+    public void resolveProjectByPathWithoutListing() throws Exception {
+        ProjectState projectState = new ProjectState();
+        GitlabProject project = project(7, "git@gitlab.com:Polivka/Sub/kugkg.git", true);
+        settingsState.apiFacade.pathProjects.put("polivka/sub/kugkg", project);
+        Optional<GitlabProject> resolvedProject = gitLabProjectMatcher.resolveProject(projectState, remote("origin", "ssh://git@gitlab.com/Polivka/Sub/kugkg"), null);
+        Assert.assertTrue(resolvedProject.isPresent());
+        Assert.assertEquals(0, settingsState.apiFacade.listings);
+        Assert.assertEquals(Integer.valueOf(7), projectState.getProjectId("ssh://git@gitlab.com/Polivka/Sub/kugkg"));
+    }
+
+    @Test
+    public void resolveCachedProjectWithoutRequests() throws Exception {
+        ProjectState projectState = new ProjectState();
+        GitlabProject project = project(7, "https://gitlab.com/Polivka/kugkg.git", false);
+        project.setPathWithNamespace("Polivka/kugkg");
+        settingsState.apiFacade.pathProjects.put("polivka/kugkg", project);
+        GitRemote remote = remote("origin", "https://gitlab.com/Polivka/kugkg.git");
+        gitLabProjectMatcher.resolveProject(projectState, remote, null);
+        settingsState.apiFacade.pathProjects.clear();
+
+        Optional<GitlabProject> resolvedProject = gitLabProjectMatcher.resolveProject(projectState, remote, null);
+        Assert.assertEquals(Integer.valueOf(7), resolvedProject.get().getId());
+        Assert.assertEquals("Polivka/kugkg", resolvedProject.get().getPathWithNamespace());
+        Assert.assertEquals(1, settingsState.apiFacade.pathLookups);
+        Assert.assertEquals(0, settingsState.apiFacade.listings);
+    }
+
+    @Test
+    public void cachedProjectOfOtherServerIsNotUsed() throws Exception {
+        ProjectState projectState = new ProjectState();
+        GitlabProject project = project(7, "https://gitlab.com/Polivka/kugkg.git", false);
+        settingsState.apiFacade.pathProjects.put("polivka/kugkg", project);
+        GitRemote remote = remote("origin", "https://gitlab.com/Polivka/kugkg.git");
+        gitLabProjectMatcher.resolveProject(projectState, remote, null);
+
+        settingsState.server.setApiUrl("https://gitlab.example.com");
+        gitLabProjectMatcher.resolveProject(projectState, remote, null);
+        Assert.assertEquals(2, settingsState.apiFacade.pathLookups);
+    }
+
+    @Test
+    public void resolveProjectByPathOfOtherHost() throws Exception {
+        GitlabProject project = project(7, "https://gitlab.com/Polivka/kugkg.git", false);
+        settingsState.apiFacade.pathProjects.put("polivka/kugkg", project);
+        Optional<GitlabProject> resolvedProject = gitLabProjectMatcher.resolveProject(new ProjectState(), remote("origin", "https://github.com/Polivka/kugkg.git"), null);
+        Assert.assertFalse(resolvedProject.isPresent());
+        Assert.assertEquals(1, settingsState.apiFacade.listings);
+    }
+
+    @Test
+    public void normalizeUrl() {
+        Assert.assertEquals("gitlab.com/polivka/kugkg", ProjectUrlIndex.normalize("git@gitlab.com:Polivka/kugkg.git"));
+        Assert.assertEquals("gitlab.com/polivka/kugkg", ProjectUrlIndex.normalize("https://user@gitlab.com/Polivka/kugkg/"));
+        Assert.assertEquals("gitlab.com:2222/polivka/kugkg", ProjectUrlIndex.normalize("ssh://git@gitlab.com:2222/Polivka/kugkg.git"));
+        Assert.assertEquals("polivka/kugkg", ProjectUrlIndex.projectPath("ssh://git@gitlab.com:2222/Polivka/kugkg.git"));
+        Assert.assertNull(ProjectUrlIndex.projectPath("https://gitlab.com/kugkg"));
+    }
+
     private void testResolving(String remoteUrl, String projectUrl, boolean ssh, boolean shouldBeResolved) {
         ProjectState projectState = new ProjectState();
         GitRemote remote = remote("origin", remoteUrl);
@@ -91,6 +151,9 @@ public class GitLabProjectMatcherTest {
 
     private class DummyApiFacade extends ApiFacade {
         private Map<Integer,GitlabProject> projects = new HashMap<>();
+        private Map<String,GitlabProject> pathProjects = new HashMap<>();
+        private int listings = 0;
+        private int pathLookups = 0;
 
         public void addProject(Integer id, GitlabProject project) {
             projects.put(id, project);
@@ -102,13 +165,34 @@ public class GitLabProjectMatcherTest {
         }
 
         @Override
-        public Collection<GitlabProject> getProjects() throws Throwable {
-            return projects.values();
+        public GitlabProject getProject(String pathWithNamespace) throws IOException {
+            pathLookups++;
+            GitlabProject project = pathProjects.get(pathWithNamespace);
+            if (project == null) {
+                throw new IOException("404 Not Found");
+            }
+            return project;
+        }
+
+        @Override
+        public Stream<GitlabProject> streamProjects() throws IOException {
+            listings++;
+            return projects.values().stream();
         }
     }
 
     private class DummySettingState extends SettingsState {
         DummyApiFacade apiFacade = new DummyApiFacade();
+        GitlabServer server = new GitlabServer();
+
+        DummySettingState() {
+            server.setApiUrl("https://gitlab.com");
+        }
+
+        @Override
+        public GitlabServer currentGitlabServer(GitRepository gitRepository) {
+            return server;
+        }
 
         @Override
         public ApiFacade api(Project project, VirtualFile file) {
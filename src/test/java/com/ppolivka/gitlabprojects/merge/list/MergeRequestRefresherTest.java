@@ -0,0 +1,88 @@
+package com.ppolivka.gitlabprojects.merge.list;
+
+import org.gitlab.api.models.GitlabMergeRequest;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Test of merge request polling and its interval
+ */
+public class MergeRequestRefresherTest {
+
+    private final List<GitlabMergeRequest> serverChanges = new ArrayList<>();
+    private final List<Date> requestedSince = new ArrayList<>();
+    private final List<List<GitlabMergeRequest>> reported = new ArrayList<>();
+    private boolean serverDown;
+
+    private final MergeRequestRefresher refresher = new MergeRequestRefresher(since -> {
+        requestedSince.add(since);
+        if (serverDown) {
+            throw new IOException("server down");
+        }
+        return new ArrayList<>(serverChanges);
+    }, reported::add, null, Runnable::run);
+
+    @Test
+    public void intervalGrowsWithoutChanges() {
+        refresher.poll();
+        Assert.assertEquals(MergeRequestRefresher.MIN_INTERVAL * 2, refresher.getInterval());
+
+        for (int i = 0; i < 20; i++) {
+            refresher.poll();
+        }
+        Assert.assertEquals(MergeRequestRefresher.MAX_INTERVAL, refresher.getInterval());
+        Assert.assertTrue(reported.isEmpty());
+    }
+
+    @Test
+    public void changeResetsIntervalAndMovesSyncPoint() {
+        refresher.poll();
+        refresher.poll();
+        Date updatedAt = new Date();
+        serverChanges.add(mergeRequest(1, updatedAt));
+        refresher.poll();
+
+        Assert.assertEquals(MergeRequestRefresher.MIN_INTERVAL, refresher.getInterval());
+        Assert.assertEquals(1, reported.size());
+
+        refresher.poll();
+        Assert.assertEquals(new Date(updatedAt.getTime() - MergeRequestRefresher.POLL_OVERLAP), requestedSince.get(requestedSince.size() - 1));
+        Assert.assertEquals("same merge request returned again is not reported", 1, reported.size());
+        Assert.assertEquals(MergeRequestRefresher.MIN_INTERVAL * 2, refresher.getInterval());
+    }
+
+    @Test
+    public void mergeRequestUpdatedInSameSecondIsReported() {
+        Date updatedAt = new Date();
+        serverChanges.add(mergeRequest(1, updatedAt));
+        refresher.poll();
+
+        serverChanges.add(mergeRequest(2, updatedAt));
+        refresher.poll();
+
+        Assert.assertEquals(2, reported.size());
+        Assert.assertEquals(1, reported.get(1).size());
+        Assert.assertEquals(Integer.valueOf(2), reported.get(1).get(0).getId());
+    }
+
+    @Test
+    public void failedPollBacksOff() {
+        serverDown = true;
+        refresher.poll();
+        Assert.assertEquals(MergeRequestRefresher.MIN_INTERVAL * 2, refresher.getInterval());
+        Assert.assertEquals(Collections.emptyList(), reported);
+    }
+
+    private static GitlabMergeRequest mergeRequest(int id, Date updatedAt) {
+        GitlabMergeRequest mergeRequest = new GitlabMergeRequest();
+        mergeRequest.setId(id);
+        mergeRequest.setUpdatedAt(updatedAt);
+        return mergeRequest;
+    }
+}
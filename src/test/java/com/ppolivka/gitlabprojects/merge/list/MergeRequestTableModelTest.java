@@ -0,0 +1,147 @@
+package com.ppolivka.gitlabprojects.merge.list;
+
+import com.ppolivka.gitlabprojects.util.CountingIterator;
+import org.gitlab.api.models.GitlabMergeRequest;
+import org.gitlab.api.models.GitlabUser;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.swing.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Test of page by page loading of merge request table
+ */
+public class MergeRequestTableModelTest {
+
+    private static final int PAGE_SIZE = 20;
+
+    private final AtomicReference<RuntimeException> error = new AtomicReference<>();
+
+    @Test
+    public void onlyFirstPageIsLoadedInitially() throws Exception {
+        CountingIterator<GitlabMergeRequest> source = source(45);
+        MergeRequestTableModel model = new MergeRequestTableModel(source, PAGE_SIZE, Runnable::run, error::set);
+
+        SwingUtilities.invokeAndWait(model::loadMore);
+        SwingUtilities.invokeAndWait(() -> {
+        });
+
+        Assert.assertEquals(PAGE_SIZE, model.getRowCount());
+        Assert.assertEquals(PAGE_SIZE, source.getConsumed());
+        Assert.assertFalse(model.isComplete());
+        Assert.assertEquals("Merge request 0", model.getValueAt(0, 0));
+        Assert.assertEquals("author", model.getValueAt(0, 1));
+        Assert.assertEquals("", model.getValueAt(0, 4));
+        Assert.assertEquals(Integer.valueOf(19), model.getMergeRequest(19).getIid());
+    }
+
+    @Test
+    public void pagesAreAppendedUntilSourceIsExhausted() throws Exception {
+        MergeRequestTableModel model = new MergeRequestTableModel(source(45), PAGE_SIZE, Runnable::run, error::set);
+
+        for (int i = 0; i < 5; i++) {
+            SwingUtilities.invokeAndWait(model::loadMore);
+            SwingUtilities.invokeAndWait(() -> {
+            });
+        }
+
+        Assert.assertEquals(45, model.getRowCount());
+        Assert.assertTrue(model.isComplete());
+        Assert.assertEquals(Integer.valueOf(44), model.getMergeRequest(44).getIid());
+    }
+
+    @Test
+    public void pageIsNotRequestedTwiceWhileLoading() throws Exception {
+        MergeRequestTableModel model = new MergeRequestTableModel(source(45), PAGE_SIZE, Runnable::run, error::set);
+
+        SwingUtilities.invokeAndWait(() -> {
+            model.loadMore();
+            model.loadMore();
+        });
+        SwingUtilities.invokeAndWait(() -> {
+        });
+
+        Assert.assertEquals(PAGE_SIZE, model.getRowCount());
+    }
+
+    @Test
+    public void failedPageStopsLoading() throws Exception {
+        Iterator<GitlabMergeRequest> failing = new Iterator<GitlabMergeRequest>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public GitlabMergeRequest next() {
+                throw new UncheckedIOException(new IOException("server down"));
+            }
+        };
+        MergeRequestTableModel model = new MergeRequestTableModel(failing, PAGE_SIZE, Runnable::run, error::set);
+
+        SwingUtilities.invokeAndWait(model::loadMore);
+        SwingUtilities.invokeAndWait(() -> {
+        });
+
+        Assert.assertTrue(error.get() instanceof UncheckedIOException);
+        Assert.assertTrue(model.isComplete());
+        Assert.assertEquals(0, model.getRowCount());
+    }
+
+    @Test
+    public void changesAreMergedIntoLoadedRows() throws Exception {
+        MergeRequestTableModel model = new MergeRequestTableModel(source(3), PAGE_SIZE, Runnable::run, error::set);
+        SwingUtilities.invokeAndWait(model::loadMore);
+
+        GitlabMergeRequest updated = mergeRequest(1, "opened");
+        updated.setTitle("Renamed");
+        SwingUtilities.invokeAndWait(() -> model.applyChanges(Arrays.asList(
+                updated, mergeRequest(2, "merged"), mergeRequest(7, "opened"), mergeRequest(8, "closed"))));
+
+        Assert.assertEquals(3, model.getRowCount());
+        Assert.assertEquals(Integer.valueOf(7), model.getMergeRequest(0).getIid());
+        Assert.assertEquals(Integer.valueOf(0), model.getMergeRequest(1).getIid());
+        Assert.assertEquals("Renamed", model.getValueAt(2, 0));
+    }
+
+    @Test
+    public void rowAddedByRefreshIsNotDuplicatedByNextPage() throws Exception {
+        MergeRequestTableModel model = new MergeRequestTableModel(source(30), PAGE_SIZE, Runnable::run, error::set);
+        SwingUtilities.invokeAndWait(model::loadMore);
+        SwingUtilities.invokeAndWait(() -> model.applyChanges(Collections.singletonList(mergeRequest(25, "opened"))));
+        SwingUtilities.invokeAndWait(model::loadMore);
+        SwingUtilities.invokeAndWait(() -> {
+        });
+
+        Assert.assertEquals(30, model.getRowCount());
+    }
+
+    private static GitlabMergeRequest mergeRequest(int iid, String state) {
+        GitlabMergeRequest mergeRequest = new GitlabMergeRequest();
+        mergeRequest.setId(1000 + iid);
+        mergeRequest.setIid(iid);
+        mergeRequest.setState(state);
+        mergeRequest.setTitle("Merge request " + iid);
+        return mergeRequest;
+    }
+
+    private static CountingIterator<GitlabMergeRequest> source(int count) {
+        List<GitlabMergeRequest> mergeRequests = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            GitlabMergeRequest mergeRequest = mergeRequest(i, "opened");
+            GitlabUser author = new GitlabUser();
+            author.setName("author");
+            mergeRequest.setAuthor(author);
+            mergeRequests.add(mergeRequest);
+        }
+        return new CountingIterator<>(mergeRequests);
+    }
+}
@@ -0,0 +1,62 @@
+package com.ppolivka.gitlabprojects.merge.request;
+
+import org.gitlab.api.models.GitlabUser;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Test for local member search
+ */
+public class ProjectMemberIndexTest {
+
+    private ProjectMemberIndex index;
+
+    @Before
+    public void setUp() {
+        index = new ProjectMemberIndex(Arrays.asList(
+                user("Pavel Polivka", "ppolivka"),
+                user("Alice Smith", "asmith"),
+                user("Bob Kalina", "bkalina"),
+                user("Alina Novak", "anovak")
+        ));
+    }
+
+    @Test
+    public void membersAreSortedByUsername() {
+        Assert.assertEquals(Arrays.asList("anovak", "asmith", "bkalina", "ppolivka"), usernames(index.search("")));
+    }
+
+    @Test
+    public void longQueryMatchesNameAndUsername() {
+        Assert.assertEquals(Arrays.asList("anovak", "bkalina"), usernames(index.search("ALINA")));
+        Assert.assertEquals(Arrays.asList("ppolivka"), usernames(index.search("polivk")));
+        Assert.assertTrue(index.search("zzz").isEmpty());
+    }
+
+    @Test
+    public void shortQueryIsScanned() {
+        Assert.assertEquals(Arrays.asList("anovak", "asmith", "bkalina"), usernames(index.search("al")));
+    }
+
+    @Test
+    public void queryDoesNotMatchAcrossUsernameAndName() {
+        Assert.assertTrue(index.search("novakalina").isEmpty());
+        Assert.assertTrue(index.search("anovakalina").isEmpty());
+    }
+
+    private List<String> usernames(List<GitlabUser> users) {
+        return users.stream().map(GitlabUser::getUsername).collect(Collectors.toList());
+    }
+
+    private GitlabUser user(String name, String username) {
+        GitlabUser user = new GitlabUser();
+        user.setName(name);
+        user.setUsername(username);
+        return user;
+    }
+}
@@ -0,0 +1,58 @@
+package com.ppolivka.gitlabprojects.merge.request;
+
+import org.gitlab.api.models.GitlabUser;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Test for answering extended queries from cached search results
+ */
+public class UserSearchCacheTest {
+
+    private UserSearchCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new UserSearchCache();
+    }
+
+    @Test
+    public void extendedQueryIsNarrowedLocally() {
+        cache.put("ali", Arrays.asList(user("Alice Smith", "asmith"), user("Alina Novak", "anovak"), user("Bob Kalina", "bkalina")), true);
+
+        List<GitlabUser> users = cache.get("Alic");
+        Assert.assertEquals(1, users.size());
+        Assert.assertEquals("asmith", users.get(0).getUsername());
+        Assert.assertEquals(1, cache.get("alice").size());
+        Assert.assertEquals(2, cache.get("alina").size());
+        Assert.assertNull(cache.get("kalin"));
+    }
+
+    @Test
+    public void truncatedResultIsNotNarrowed() {
+        cache.put("ali", Arrays.asList(user("Alice Smith", "asmith"), user("Alina Novak", "anovak")), false);
+
+        Assert.assertNotNull(cache.get("ali"));
+        Assert.assertNull(cache.get("alic"));
+    }
+
+    @Test
+    public void narrowestCompleteResultIsUsed() {
+        cache.put("", Arrays.asList(user("Alice Smith", "asmith")), false);
+        cache.put("al", Arrays.asList(user("Alice Smith", "asmith"), user("Alan Turing", "aturing")), true);
+
+        Assert.assertEquals(1, cache.get("alan").size());
+        Assert.assertNull(cache.get("bob"));
+    }
+
+    private GitlabUser user(String name, String username) {
+        GitlabUser user = new GitlabUser();
+        user.setName(name);
+        user.setUsername(username);
+        return user;
+    }
+}
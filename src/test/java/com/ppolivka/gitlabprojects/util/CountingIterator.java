@@ -0,0 +1,40 @@
+package com.ppolivka.gitlabprojects.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Iterator over given elements for unit tests, counts elements that were consumed
+ * Used in place of lazily paged server collections, to check that no more than needed is requested.
+ */
+public class CountingIterator<T> implements Iterator<T> {
+
+    private final Iterator<T> iterator;
+    private final AtomicInteger consumed = new AtomicInteger();
+
+    public CountingIterator(Collection<T> elements) {
+        this.iterator = elements.iterator();
+    }
+
+    @SafeVarargs
+    public static <T> CountingIterator<T> of(T... elements) {
+        return new CountingIterator<>(Arrays.asList(elements));
+    }
+
+    @Override
+    public boolean hasNext() {
+        return iterator.hasNext();
+    }
+
+    @Override
+    public T next() {
+        consumed.incrementAndGet();
+        return iterator.next();
+    }
+
+    public int getConsumed() {
+        return consumed.get();
+    }
+}